@@ -0,0 +1,27 @@
+package org.bookchain.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 基准测试入口，默认开启GC分配分析（gc.alloc.rate.norm即每次操作分配字节数）
+ * 命令行参数透传给JMH，如：-p assetCount=10000 transferAsset，或 IdGeneratorBenchmark -t 8
+ * 构建与运行：mvn -f bench/pom.xml package && java -jar bench/target/benchmarks.jar [参数]
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(commandLine);
+        if (commandLine.getIncludes().isEmpty()) {
+            options.include(BookChaincodeBenchmark.class.getSimpleName());
+        }
+        options.addProfiler(GCProfiler.class);
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,123 @@
+package org.bookchain.bench;
+
+import org.bookchain.BookChaincode;
+import org.hyperledger.fabric.shim.Chaincode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BookChaincode基准测试：在内存世界状态上模拟背书（执行链码后丢弃写集），
+ * 分别在1万、10万、100万资产规模下测量各链码函数耗时
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class BookChaincodeBenchmark {
+    private static final int PRELOAD_BATCH_SIZE = 500;
+    private static final int BLIND_BOX_RATIO = 10; // 每10个资产中1个盲盒
+
+    @Param({"10000", "100000", "1000000"})
+    public int assetCount;
+
+    private BookChaincode chaincode;
+    private InMemoryChaincodeStub stub;
+    private long nextAssetId;
+    private String batchJson;
+
+    @Setup(Level.Trial)
+    public void preload() {
+        chaincode = new BookChaincode();
+        stub = new InMemoryChaincodeStub();
+        for (int start = 0; start < assetCount; start += PRELOAD_BATCH_SIZE) {
+            int end = Math.min(start + PRELOAD_BATCH_SIZE, assetCount);
+            checked(chaincode.invoke(stub.invocation("createAssetsBatch", "assets", assetsJson(start, end))));
+            stub.commit();
+        }
+        nextAssetId = assetCount;
+        batchJson = assetsJson(assetCount, assetCount + 100);
+    }
+
+    @TearDown(Level.Invocation)
+    public void discardWrites() {
+        stub.rollback();
+    }
+
+    @Benchmark
+    public Chaincode.Response createAsset() {
+        return chaincode.invoke(stub.invocation("createAsset",
+                "assetId", String.valueOf(nextAssetId++),
+                "owner", "0xbench-owner",
+                "type", "NORMAL",
+                "timestamp", "2024-01-01T00:00:00Z"));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(100)
+    public Chaincode.Response createAssetsBatch100() {
+        return chaincode.invoke(stub.invocation("createAssetsBatch", "assets", batchJson));
+    }
+
+    @Benchmark
+    public Chaincode.Response transferAsset() {
+        return chaincode.invoke(stub.invocation("transferAsset",
+                "assetId", randomAssetId(),
+                "owner", "0xbench-new-owner"));
+    }
+
+    @Benchmark
+    public Chaincode.Response readAsset() {
+        return chaincode.invoke(stub.invocation("readAsset", "assetId", randomAssetId()));
+    }
+
+    @Benchmark
+    public Chaincode.Response queryAllAssets() {
+        return chaincode.invoke(stub.invocation("queryAllAssets"));
+    }
+
+    @Benchmark
+    public Chaincode.Response queryAllBlindBoxes() {
+        return chaincode.invoke(stub.invocation("queryAllAssets", "type", "BLIND_BOX"));
+    }
+
+    @Benchmark
+    public Chaincode.Response queryAssetsFirstPage() {
+        return chaincode.invoke(stub.invocation("queryAssetsPage", "pageSize", "100"));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(500)
+    public Chaincode.Response migrateTypeIndex500() {
+        // 回填是读写交易，桩在分页查询后拒绝写入，链码误用分页查询时这里直接失败
+        return checked(chaincode.invoke(stub.invocation("migrateTypeIndex", "pageSize", "500")));
+    }
+
+    private static Chaincode.Response checked(Chaincode.Response response) {
+        if (response.getStatus() != Chaincode.Response.Status.SUCCESS) {
+            throw new IllegalStateException("链码调用失败：" + response.getMessage());
+        }
+        return response;
+    }
+
+    private String randomAssetId() {
+        return String.valueOf(ThreadLocalRandom.current().nextInt(assetCount));
+    }
+
+    private static String assetsJson(int start, int end) {
+        StringBuilder json = new StringBuilder((end - start) * 96).append('[');
+        for (int id = start; id < end; id++) {
+            if (id > start) {
+                json.append(',');
+            }
+            json.append("{\"assetId\":\"").append(id)
+                    .append("\",\"owner\":\"0xowner").append(id % 1000)
+                    .append("\",\"type\":\"").append(id % BLIND_BOX_RATIO == 0 ? "BLIND_BOX" : "NORMAL")
+                    .append("\",\"timestamp\":\"2024-01-01T00:00:00Z\"}");
+        }
+        return json.append(']').toString();
+    }
+}
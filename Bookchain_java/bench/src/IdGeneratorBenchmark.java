@@ -0,0 +1,55 @@
+package org.bookchain.bench;
+
+import com.bookchain.utils.TimeOrderedIdGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ID生成基准测试：原基于UUID.randomUUID()的用户名/地址/32位UUID生成方式与时间有序ID生成器对比
+ * 争用场景用JMH线程数参数测量，如：IdGeneratorBenchmark -t 8
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdGeneratorBenchmark {
+    private final TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(1);
+
+    // ---- 原实现（UserService、UUIDGenerator） ----
+
+    @Benchmark
+    public String uuidUsername() {
+        return "USER_" + UUID.randomUUID().toString().toUpperCase().substring(0, 8);
+    }
+
+    @Benchmark
+    public String uuidAddress() {
+        return "0x" + UUID.randomUUID().toString().substring(0, 38);
+    }
+
+    @Benchmark
+    public String uuid32() {
+        return UUID.randomUUID().toString().replace("-", "").toLowerCase();
+    }
+
+    // ---- 时间有序ID ----
+
+    @Benchmark
+    public long timeOrderedId() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    public String timeOrderedUsername() {
+        return "USER_" + generator.nextBase32();
+    }
+
+    @Benchmark
+    public String timeOrderedAddress() {
+        return generator.nextAddress();
+    }
+}
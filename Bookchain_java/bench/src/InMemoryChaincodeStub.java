@@ -0,0 +1,429 @@
+package org.bookchain.bench;
+
+import org.hyperledger.fabric.protos.peer.ChaincodeEvent;
+import org.hyperledger.fabric.protos.peer.QueryResponseMetadata;
+import org.hyperledger.fabric.protos.peer.SignedProposal;
+import org.hyperledger.fabric.shim.Chaincode;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * 内存版ChaincodeStub，用于在不启动Fabric网络的情况下基准测试链码
+ * 世界状态为有序TreeMap，支持范围查询、复合键及分页；写入先进入当前交易写集，
+ * 与真实背书一致，交易内读不到自身写入，commit()后才生效，rollback()则丢弃
+ * 与peer一致，分页查询只允许在只读交易中使用：同一交易内分页查询与写入同时出现时抛出异常
+ */
+public class InMemoryChaincodeStub implements ChaincodeStub {
+    // 与Fabric一致：空起始键用\u0001代替以跳过复合键命名空间，复合键前缀查询以最大码点结尾
+    private static final String EMPTY_KEY_SUBSTITUTE = "\u0001";
+    private static final String MAX_UNICODE_RUNE = new String(Character.toChars(Character.MAX_CODE_POINT));
+
+    private final NavigableMap<String, byte[]> worldState = new TreeMap<>();
+    private final Map<String, byte[]> writeSet = new HashMap<>();
+    private final Set<String> deleteSet = new HashSet<>();
+
+    private String function;
+    private List<String> parameters = Collections.emptyList();
+    private long txCounter;
+    private String txId;
+    private String eventName;
+    private byte[] eventPayload;
+    private boolean paginatedQueried; // 当前交易已执行过分页查询
+
+    /**
+     * 开始一次新的调用（相当于一笔新提案）
+     */
+    public InMemoryChaincodeStub invocation(String function, String... parameters) {
+        this.function = function;
+        this.parameters = Arrays.asList(parameters);
+        this.txId = "tx" + (++txCounter);
+        this.eventName = null;
+        this.eventPayload = null;
+        this.paginatedQueried = false;
+        return this;
+    }
+
+    /**
+     * 提交当前交易写集到世界状态
+     */
+    public void commit() {
+        for (String key : deleteSet) {
+            worldState.remove(key);
+        }
+        worldState.putAll(writeSet);
+        rollback();
+    }
+
+    /**
+     * 丢弃当前交易写集（只模拟背书，不提交）
+     */
+    public void rollback() {
+        writeSet.clear();
+        deleteSet.clear();
+        paginatedQueried = false;
+    }
+
+    public int stateSize() {
+        return worldState.size();
+    }
+
+    public String getEventName() {
+        return eventName;
+    }
+
+    public byte[] getEventPayload() {
+        return eventPayload;
+    }
+
+    @Override
+    public List<byte[]> getArgs() {
+        List<byte[]> args = new ArrayList<>(parameters.size() + 1);
+        for (String arg : getStringArgs()) {
+            args.add(arg.getBytes(StandardCharsets.UTF_8));
+        }
+        return args;
+    }
+
+    @Override
+    public List<String> getStringArgs() {
+        List<String> args = new ArrayList<>(parameters.size() + 1);
+        args.add(function);
+        args.addAll(parameters);
+        return args;
+    }
+
+    @Override
+    public String getFunction() {
+        return function;
+    }
+
+    @Override
+    public List<String> getParameters() {
+        return parameters;
+    }
+
+    @Override
+    public String getTxId() {
+        return txId;
+    }
+
+    @Override
+    public String getChannelId() {
+        return "benchchannel";
+    }
+
+    @Override
+    public Chaincode.Response invokeChaincode(String chaincodeName, List<byte[]> args, String channel) {
+        throw new UnsupportedOperationException("基准测试不支持跨链码调用");
+    }
+
+    @Override
+    public byte[] getState(String key) {
+        return worldState.get(key);
+    }
+
+    @Override
+    public byte[] getStateValidationParameter(String key) {
+        return null;
+    }
+
+    @Override
+    public void putState(String key, byte[] value) {
+        checkWritable();
+        deleteSet.remove(key);
+        writeSet.put(key, value);
+    }
+
+    @Override
+    public void setStateValidationParameter(String key, byte[] value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void delState(String key) {
+        checkWritable();
+        writeSet.remove(key);
+        deleteSet.add(key);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByRange(String startKey, String endKey) {
+        return new Results(range(startKey, endKey), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getStateByRangeWithPagination(
+            String startKey, String endKey, int pageSize, String bookmark) {
+        checkPaginationAllowed();
+        String start = bookmark == null || bookmark.isEmpty() ? startKey : bookmark;
+        return new Results(range(start, endKey), pageSize);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByPartialCompositeKey(String compositeKey) {
+        return new Results(prefix(compositeKey), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByPartialCompositeKey(String objectType, String... attributes) {
+        return getStateByPartialCompositeKey(createCompositeKey(objectType, attributes));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByPartialCompositeKey(CompositeKey compositeKey) {
+        return getStateByPartialCompositeKey(compositeKey.toString());
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getStateByPartialCompositeKeyWithPagination(
+            CompositeKey compositeKey, int pageSize, String bookmark) {
+        checkPaginationAllowed();
+        String prefix = compositeKey.toString();
+        String start = bookmark == null || bookmark.isEmpty() ? prefix : bookmark;
+        return new Results(worldState.subMap(start, true, prefix + MAX_UNICODE_RUNE, false), pageSize);
+    }
+
+    @Override
+    public CompositeKey createCompositeKey(String objectType, String... attributes) {
+        return new CompositeKey(objectType, attributes);
+    }
+
+    @Override
+    public CompositeKey splitCompositeKey(String compositeKey) {
+        return CompositeKey.parseCompositeKey(compositeKey);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getQueryResult(String query) {
+        throw new UnsupportedOperationException("内存世界状态不支持富查询");
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getQueryResultWithPagination(
+            String query, int pageSize, String bookmark) {
+        throw new UnsupportedOperationException("内存世界状态不支持富查询");
+    }
+
+    @Override
+    public QueryResultsIterator<KeyModification> getHistoryForKey(String key) {
+        throw new UnsupportedOperationException("内存世界状态不保留历史");
+    }
+
+    @Override
+    public byte[] getPrivateData(String collection, String key) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public byte[] getPrivateDataHash(String collection, String key) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public byte[] getPrivateDataValidationParameter(String collection, String key) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void putPrivateData(String collection, String key, byte[] value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setPrivateDataValidationParameter(String collection, String key, byte[] value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void delPrivateData(String collection, String key) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void purgePrivateData(String collection, String key) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByRange(String collection, String startKey, String endKey) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByPartialCompositeKey(String collection, String compositeKey) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByPartialCompositeKey(String collection, CompositeKey compositeKey) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByPartialCompositeKey(
+            String collection, String objectType, String... attributes) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataQueryResult(String collection, String query) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setEvent(String name, byte[] payload) {
+        this.eventName = name;
+        this.eventPayload = payload;
+    }
+
+    @Override
+    public ChaincodeEvent getEvent() {
+        if (eventName == null) {
+            return null;
+        }
+        return ChaincodeEvent.newBuilder()
+                .setEventName(eventName)
+                .setTxId(txId)
+                .setPayload(com.google.protobuf.ByteString.copyFrom(eventPayload))
+                .build();
+    }
+
+    @Override
+    public SignedProposal getSignedProposal() {
+        return SignedProposal.getDefaultInstance();
+    }
+
+    @Override
+    public Instant getTxTimestamp() {
+        return Instant.now();
+    }
+
+    @Override
+    public byte[] getCreator() {
+        return new byte[0];
+    }
+
+    @Override
+    public Map<String, byte[]> getTransient() {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public byte[] getBinding() {
+        return new byte[0];
+    }
+
+    @Override
+    public String getMspId() {
+        return "BenchMSP";
+    }
+
+    private void checkWritable() {
+        if (paginatedQueried) {
+            throw new IllegalStateException("交易已执行分页查询，不允许写入状态");
+        }
+    }
+
+    private void checkPaginationAllowed() {
+        if (!writeSet.isEmpty() || !deleteSet.isEmpty()) {
+            throw new IllegalStateException("分页查询只允许在只读交易中使用");
+        }
+        paginatedQueried = true;
+    }
+
+    private SortedMap<String, byte[]> range(String startKey, String endKey) {
+        String start = startKey == null || startKey.isEmpty() ? EMPTY_KEY_SUBSTITUTE : startKey;
+        if (endKey == null || endKey.isEmpty()) {
+            return worldState.tailMap(start, true);
+        }
+        return worldState.subMap(start, true, endKey, false);
+    }
+
+    private SortedMap<String, byte[]> prefix(String prefix) {
+        return worldState.subMap(prefix, true, prefix + MAX_UNICODE_RUNE, false);
+    }
+
+    /**
+     * 有序视图上的结果迭代器，最多返回pageSize条，书签为下一条记录的键
+     */
+    private static final class Results
+            implements QueryResultsIterator<KeyValue>, QueryResultsIteratorWithMetadata<KeyValue> {
+        private final SortedMap<String, byte[]> view;
+        private final int pageSize;
+        private int fetched;
+        private String nextKey = "";
+        private boolean bookmarkResolved;
+
+        Results(SortedMap<String, byte[]> view, int pageSize) {
+            this.view = view;
+            this.pageSize = pageSize;
+        }
+
+        @Override
+        public Iterator<KeyValue> iterator() {
+            Iterator<Map.Entry<String, byte[]>> entries = view.entrySet().iterator();
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    if (fetched >= pageSize) {
+                        // 本页已取满，下一条记录的键即为书签（只解析一次）
+                        if (!bookmarkResolved) {
+                            nextKey = entries.hasNext() ? entries.next().getKey() : "";
+                            bookmarkResolved = true;
+                        }
+                        return false;
+                    }
+                    return entries.hasNext();
+                }
+
+                @Override
+                public KeyValue next() {
+                    Map.Entry<String, byte[]> entry = entries.next();
+                    fetched++;
+                    return new Entry(entry.getKey(), entry.getValue());
+                }
+            };
+        }
+
+        @Override
+        public QueryResponseMetadata getMetadata() {
+            return QueryResponseMetadata.newBuilder()
+                    .setFetchedRecordsCount(fetched)
+                    .setBookmark(nextKey)
+                    .build();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static final class Entry implements KeyValue {
+        private final String key;
+        private final byte[] value;
+
+        Entry(String key, byte[] value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public byte[] getValue() {
+            return value;
+        }
+
+        @Override
+        public String getStringValue() {
+            return new String(value, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.bookchain.controller;
+
+import com.bookchain.service.BlockchainService;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * 链上资产控制器类，提供区块链资产的查询接口
+ */
+@RestController
+@RequestMapping("/api/assets")
+public class AssetController {
+    private final BlockchainService blockchainService;
+
+    public AssetController(BlockchainService blockchainService) {
+        this.blockchainService = blockchainService;
+    }
+
+    /**
+     * 分页查询链上资产（需认证）
+     * 首页不传bookmark，之后传入上一页返回的bookmark，直到返回的bookmark为空
+     */
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('USER')")
+    public String getAssetsPage(
+            @RequestParam(required = false, defaultValue = "" + BlockchainService.DEFAULT_ASSET_PAGE_SIZE) int pageSize,
+            @RequestParam(required = false, defaultValue = "") String bookmark,
+            @RequestParam(required = false) String type // NORMAL或BLIND_BOX
+    ) {
+        return blockchainService.queryAssetsPage(pageSize, bookmark, type);
+    }
+
+    /**
+     * 批量查询链上资产当前状态（ids以逗号分隔）
+     */
+    @GetMapping(value = "/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('USER')")
+    public String getAssets(@RequestParam List<String> ids) {
+        return blockchainService.queryAssets(ids);
+    }
+
+    /**
+     * 查询单个链上资产当前状态
+     */
+    @GetMapping(value = "/{assetId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('USER')")
+    public String getAsset(@PathVariable String assetId) {
+        return blockchainService.queryAsset(assetId);
+    }
+
+    /**
+     * 分页查询链上资产的所有权变更历史（由新到旧）
+     * 首页不传bookmark，之后传入上一页返回的bookmark，直到返回的bookmark为空
+     */
+    @GetMapping(value = "/{assetId}/history", produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('USER')")
+    public String getAssetHistory(
+            @PathVariable String assetId,
+            @RequestParam(required = false, defaultValue = "" + BlockchainService.DEFAULT_ASSET_PAGE_SIZE) int pageSize,
+            @RequestParam(required = false, defaultValue = "") String bookmark
+    ) {
+        return blockchainService.queryAssetHistory(assetId, pageSize, bookmark);
+    }
+}
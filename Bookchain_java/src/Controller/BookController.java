@@ -1,11 +1,23 @@
 package com.bookchain.controller;
 
 import com.bookchain.entity.Book;
+import com.bookchain.service.BookImportService;
+import com.bookchain.service.BookSearchPage;
 import com.bookchain.service.BookService;
+import com.bookchain.service.BookView;
+import com.bookchain.service.KeysetPage;
+import com.bookchain.service.RecommendationService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -14,10 +26,24 @@ import java.util.List;
 @RestController
 @RequestMapping("/api/books")
 public class BookController {
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv");
+
     private final BookService bookService;
+    private final RecommendationService recommendationService;
+    private final BookImportService bookImportService;
+    // 导入/导出在MVC异步线程中流式写出响应，耗时与数据量成正比，不受默认异步超时（30秒）限制
+    private final long importTimeoutMillis;
+    private final long exportTimeoutMillis;
 
-    public BookController(BookService bookService) {
+    public BookController(BookService bookService, RecommendationService recommendationService,
+                          BookImportService bookImportService,
+                          @Value("${import.timeout-ms:3600000}") long importTimeoutMillis,
+                          @Value("${export.timeout-ms:3600000}") long exportTimeoutMillis) {
         this.bookService = bookService;
+        this.recommendationService = recommendationService;
+        this.bookImportService = bookImportService;
+        this.importTimeoutMillis = importTimeoutMillis;
+        this.exportTimeoutMillis = exportTimeoutMillis;
     }
 
     /**
@@ -46,25 +72,93 @@ public class BookController {
     }
 
     /**
-     * 查询所有书籍（可过滤盲盒）
+     * 批量导入普通书籍（需认证），请求体为CSV（首行为表头，列名title/author/description/category）
+     * 或JSON Lines（每行一个对象），边上传边导入；响应为NDJSON流：每块一条进度、每个无效行一条错误、最后一条汇总
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson", "application/jsonl"})
+    @PreAuthorize("hasRole('USER')")
+    public WebAsyncTask<Void> importBooks(
+            @RequestHeader("X-User-Id") Long userId,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
+        String format = CSV.includes(contentType) ? "csv" : "jsonl";
+        BookImportService.ImportJob job = bookImportService.prepare(userId, format, request.getInputStream());
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        return new WebAsyncTask<>(importTimeoutMillis, () -> {
+            job.run(response.getOutputStream());
+            response.flushBuffer();
+            return null;
+        });
+    }
+
+    /**
+     * 分页查询书籍（可过滤盲盒）
+     * 首页不传cursor，之后传入上一页返回的nextCursor，直到nextCursor为空
      */
     @GetMapping
-    public List<Book> getAllBooks(@RequestParam(required = false, defaultValue = "false") boolean includeBlindBox) {
-        return bookService.getAllBooks(includeBlindBox);
+    public KeysetPage<BookView> getAllBooks(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "" + KeysetPage.DEFAULT_LIMIT) int limit,
+            @RequestParam(required = false, defaultValue = "false") boolean includeBlindBox,
+            @RequestHeader(value = "X-User-Id", required = false) Long userId
+    ) {
+        return bookService.getBooksPage(cursor, limit, includeBlindBox, userId);
+    }
+
+    /**
+     * 导出全部书籍（管理员权限），以JSON数组流式写出
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public WebAsyncTask<Void> exportBooks(
+            @RequestParam(required = false, defaultValue = "false") boolean includeBlindBox,
+            @RequestHeader("X-User-Id") Long userId,
+            HttpServletResponse response
+    ) {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        return new WebAsyncTask<>(exportTimeoutMillis, () -> {
+            bookService.exportBooks(includeBlindBox, userId, response.getOutputStream());
+            response.flushBuffer();
+            return null;
+        });
+    }
+
+    /**
+     * 全文检索书籍（标题、作者、描述、类别，支持中文），按相关度分页
+     */
+    @GetMapping("/search")
+    public BookSearchPage searchBooks(
+            @RequestParam("q") String keyword,
+            @RequestParam(required = false, defaultValue = "0") int page,
+            @RequestParam(required = false, defaultValue = "" + BookSearchPage.DEFAULT_SIZE) int size,
+            @RequestHeader(value = "X-User-Id", required = false) Long userId
+    ) {
+        return bookService.searchBooks(keyword, page, size, userId);
     }
 
     /**
      * 根据ID查询书籍（处理盲盒可见性）
      */
     @GetMapping("/{bookId}")
-    public Book getBookById(
+    public BookView getBookById(
             @PathVariable Long bookId,
-            @RequestHeader("X-User-Id") Long userId,
-            @RequestParam(required = false, defaultValue = "false") boolean isOwner
+            @RequestHeader("X-User-Id") Long userId
+    ) {
+        // 所有权由服务层比较所有者ID判定，非所有者查看盲盒时返回遮蔽后的视图
+        return bookService.getBookById(bookId, userId);
+    }
+
+    /**
+     * 拥有过该书的用户还拥有过的书籍
+     */
+    @GetMapping("/{bookId}/also-owned")
+    public List<Book> getAlsoOwned(
+            @PathVariable Long bookId,
+            @RequestParam(required = false, defaultValue = "10") int limit
     ) {
-        // 校验是否为所有者（简化逻辑，实际需对比用户ID）
-        boolean isActualOwner = userId.equals(bookService.getBookById(bookId, isOwner).getOwner().getUserId());
-        return bookService.getBookById(bookId, isActualOwner);
+        return recommendationService.recommendAlsoOwned(bookId, Math.min(Math.max(limit, 0), 100));
     }
 
     /**
@@ -1,10 +1,15 @@
 package com.bookchain.controller;
 
-import com.bookchain.entity.Transaction;
+import com.bookchain.repository.TransactionView;
+import com.bookchain.service.KeysetPage;
 import com.bookchain.service.TransactionService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
 import java.util.List;
 
@@ -15,19 +20,40 @@ import java.util.List;
 @RequestMapping("/api/transactions")
 public class TransactionController {
     private final TransactionService transactionService;
+    private final long exportTimeoutMillis; // 导出流式写出的异步超时，不受默认异步超时（30秒）限制
 
-    public TransactionController(TransactionService transactionService) {
+    public TransactionController(TransactionService transactionService,
+                                 @Value("${export.timeout-ms:3600000}") long exportTimeoutMillis) {
         this.transactionService = transactionService;
+        this.exportTimeoutMillis = exportTimeoutMillis;
     }
 
     /**
-     * 查询所有交易记录（管理员权限示例）
+     * 分页查询所有交易记录（管理员权限示例）
+     * 首页不传cursor，之后传入上一页返回的nextCursor，直到nextCursor为空
      */
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')") // 仅管理员可访问
     @ResponseStatus(HttpStatus.OK)
-    public List<Transaction> getAllTransactions() {
-        return transactionService.getAllTransactions();
+    public KeysetPage<TransactionView> getAllTransactions(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "" + KeysetPage.DEFAULT_LIMIT) int limit
+    ) {
+        return transactionService.getTransactionsPage(cursor, limit);
+    }
+
+    /**
+     * 导出全部交易记录（管理员权限），以JSON数组流式写出
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public WebAsyncTask<Void> exportTransactions(HttpServletResponse response) {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        return new WebAsyncTask<>(exportTimeoutMillis, () -> {
+            transactionService.exportTransactions(response.getOutputStream());
+            response.flushBuffer();
+            return null;
+        });
     }
 
     /**
@@ -35,7 +61,7 @@ public class TransactionController {
      */
     @GetMapping("/book/{bookId}")
     @PreAuthorize("hasRole('USER')")
-    public List<Transaction> getTransactionsByBookId(@PathVariable Long bookId) {
+    public List<TransactionView> getTransactionsByBookId(@PathVariable Long bookId) {
         return transactionService.getTransactionsByBookId(bookId);
     }
 
@@ -44,7 +70,7 @@ public class TransactionController {
      */
     @GetMapping("/user/{userId}")
     @PreAuthorize("hasRole('USER')")
-    public List<Transaction> getTransactionsByUserId(
+    public List<TransactionView> getTransactionsByUserId(
             @PathVariable Long userId,
             @RequestParam(required = false) String type // type=send或receive
     ) {
@@ -61,19 +87,22 @@ public class TransactionController {
      */
     @GetMapping("/filter")
     @PreAuthorize("hasRole('USER')")
-    public List<Transaction> filterTransactionsByType(
+    public List<TransactionView> filterTransactionsByType(
             @RequestParam String transactionType
     ) {
         return transactionService.filterByTransactionType(transactionType);
     }
 
     /**
-     * 查询单个交易记录（通过区块链哈希）
+     * 查询链上交易对应的交易记录（通过区块链哈希，批量创建的交易对应多本书籍）
      */
     @GetMapping("/{txHash}")
     @PreAuthorize("hasRole('USER')")
-    public Transaction getTransactionByHash(@PathVariable String txHash) {
-        return transactionService.getTransactionByBlockchainTxHash(txHash)
-                .orElseThrow(() -> new IllegalArgumentException("交易记录不存在"));
+    public List<TransactionView> getTransactionByHash(@PathVariable String txHash) {
+        List<TransactionView> transactions = transactionService.getTransactionsByBlockchainTxHash(txHash);
+        if (transactions.isEmpty()) {
+            throw new IllegalArgumentException("交易记录不存在");
+        }
+        return transactions;
     }
 }
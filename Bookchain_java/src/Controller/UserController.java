@@ -1,6 +1,7 @@
 package com.bookchain.controller;
 
 import com.bookchain.entity.User;
+import com.bookchain.security.JwtTokenUtil;
 import com.bookchain.service.UserService;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -15,13 +16,15 @@ import java.util.Map;
 @RequestMapping("/api/users")
 public class UserController {
     private final UserService userService;
+    private final JwtTokenUtil jwtTokenUtil;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, JwtTokenUtil jwtTokenUtil) {
         this.userService = userService;
+        this.jwtTokenUtil = jwtTokenUtil;
     }
 
     /**
-     * 用户注册接口（公开访问）
+     * 用户注册接口（公开访问），密码哈希执行器饱和时返回429
      */
     @PostMapping("/register")
     @ResponseStatus(HttpStatus.CREATED)
@@ -35,19 +38,20 @@ public class UserController {
     }
 
     /**
-     * 用户登录接口（示例，实际需结合Spring Security）
+     * 用户登录接口（公开访问），校验密码后返回JWT令牌
+     * 密码哈希执行器饱和时返回429
      */
     @PostMapping("/login")
     public String loginUser(@RequestBody Map<String, String> requestBody) {
         String username = requestBody.get("username");
         String password = requestBody.get("password");
 
-        // 示例逻辑：实际应通过Spring Security处理认证
-        User user = userService.getUserByUsername(username)
-                .orElseThrow(() -> new IllegalArgumentException("用户不存在"));
-        // 校验密码（需在UserService中实现匹配逻辑）
-        // if (userService.authenticateUser(username, password)) { ... }
-        return "登录成功（示例返回，实际应返回JWT令牌）";
+        User user = userService.authenticate(username, password);
+        return jwtTokenUtil.generateToken(org.springframework.security.core.userdetails.User
+                .withUsername(user.getUsername())
+                .password(user.getPassword())
+                .roles("USER")
+                .build());
     }
 
     /**
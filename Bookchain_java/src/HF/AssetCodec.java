@@ -0,0 +1,217 @@
+package org.bookchain;
+
+import org.json.JSONObject;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 资产状态二进制编解码器
+ * 格式（v1）：魔数(1B) | 版本(1B) | 类型(1B) | assetId | owner | timestamp
+ * 其中字符串字段均为 varint长度 + UTF-8字节；旧版JSON状态以'{'开头，与魔数不冲突，读取时自动兼容
+ */
+final class AssetCodec {
+
+    static final byte MAGIC = (byte) 0xBC;
+    static final byte VERSION_1 = 0x01;
+
+    // 类型编码
+    static final byte TYPE_NORMAL = 0x00;
+    static final byte TYPE_BLIND_BOX = 0x01;
+
+    static final String ASSET_TYPE_NORMAL = "NORMAL";
+    static final String ASSET_TYPE_BLIND_BOX = "BLIND_BOX";
+
+    private static final int HEADER_LENGTH = 3;
+
+    private AssetCodec() {
+    }
+
+    /**
+     * 解码后的资产状态
+     */
+    static final class Asset {
+        final String assetId;
+        final String owner;
+        final String type;
+        final String timestamp;
+
+        Asset(String assetId, String owner, String type, String timestamp) {
+            this.assetId = assetId;
+            this.owner = owner;
+            this.type = type;
+            this.timestamp = timestamp;
+        }
+
+        /**
+         * 转换为对外输出的JSON（字段与旧版状态保持一致）
+         */
+        JSONObject toJson() {
+            JSONObject json = new JSONObject();
+            json.put("assetId", assetId);
+            json.put("owner", owner);
+            json.put("type", type);
+            json.put("timestamp", timestamp);
+            return json;
+        }
+    }
+
+    /**
+     * 判断状态是否为二进制格式（否则视为旧版JSON）
+     */
+    static boolean isBinary(byte[] state) {
+        return state.length >= HEADER_LENGTH && state[0] == MAGIC;
+    }
+
+    /**
+     * 编码资产状态
+     */
+    static byte[] encode(String assetId, String owner, String type, String timestamp) {
+        byte[] id = assetId.getBytes(StandardCharsets.UTF_8);
+        byte[] ownerBytes = owner.getBytes(StandardCharsets.UTF_8);
+        byte[] ts = timestamp.getBytes(StandardCharsets.UTF_8);
+
+        byte[] out = new byte[HEADER_LENGTH
+                + varintSize(id.length) + id.length
+                + varintSize(ownerBytes.length) + ownerBytes.length
+                + varintSize(ts.length) + ts.length];
+        out[0] = MAGIC;
+        out[1] = VERSION_1;
+        out[2] = typeCode(type);
+        int pos = HEADER_LENGTH;
+        pos = writeField(out, pos, id);
+        pos = writeField(out, pos, ownerBytes);
+        writeField(out, pos, ts);
+        return out;
+    }
+
+    /**
+     * 解码资产状态，兼容旧版JSON
+     */
+    static Asset decode(byte[] state) {
+        if (!isBinary(state)) {
+            JSONObject json = new JSONObject(new String(state, StandardCharsets.UTF_8));
+            // 早期状态可能没有timestamp，按空串处理，升级为二进制格式时同样写入空串
+            return new Asset(json.optString("assetId", null), json.optString("owner", null),
+                    json.optString("type", ASSET_TYPE_NORMAL), json.optString("timestamp", ""));
+        }
+        checkVersion(state);
+
+        int[] cursor = {HEADER_LENGTH};
+        String assetId = readString(state, cursor);
+        String owner = readString(state, cursor);
+        String timestamp = readString(state, cursor);
+        return new Asset(assetId, owner, typeName(state[2]), timestamp);
+    }
+
+    /**
+     * 只读取资产类型，二进制格式下无需解析其余字段
+     */
+    static String readType(byte[] state) {
+        if (isBinary(state)) {
+            checkVersion(state);
+            return typeName(state[2]);
+        }
+        return decode(state).type;
+    }
+
+    /**
+     * 替换所有者：二进制格式直接拼接字节，不解析其余字段；旧版JSON则整体升级为二进制格式
+     */
+    static byte[] withOwner(byte[] state, String newOwner) {
+        if (!isBinary(state)) {
+            Asset legacy = decode(state);
+            return encode(legacy.assetId, newOwner, legacy.type, legacy.timestamp);
+        }
+        checkVersion(state);
+
+        // 定位owner字段的起止位置
+        int[] cursor = {HEADER_LENGTH};
+        int idLength = readVarint(state, cursor);
+        int ownerStart = cursor[0] + idLength;
+        cursor[0] = ownerStart;
+        int oldOwnerLength = readVarint(state, cursor);
+        int ownerEnd = cursor[0] + oldOwnerLength;
+
+        byte[] ownerBytes = newOwner.getBytes(StandardCharsets.UTF_8);
+        int tailLength = state.length - ownerEnd;
+        byte[] out = new byte[ownerStart + varintSize(ownerBytes.length) + ownerBytes.length + tailLength];
+        System.arraycopy(state, 0, out, 0, ownerStart);
+        int pos = writeField(out, ownerStart, ownerBytes);
+        System.arraycopy(state, ownerEnd, out, pos, tailLength);
+        return out;
+    }
+
+    private static void checkVersion(byte[] state) {
+        if (state[1] != VERSION_1) {
+            throw new IllegalArgumentException("不支持的资产状态版本：" + state[1]);
+        }
+    }
+
+    private static byte typeCode(String type) {
+        if (ASSET_TYPE_NORMAL.equals(type)) {
+            return TYPE_NORMAL;
+        }
+        if (ASSET_TYPE_BLIND_BOX.equals(type)) {
+            return TYPE_BLIND_BOX;
+        }
+        throw new IllegalArgumentException("无效的资产类型（NORMAL/BLIND_BOX）");
+    }
+
+    private static String typeName(byte code) {
+        switch (code) {
+            case TYPE_NORMAL:
+                return ASSET_TYPE_NORMAL;
+            case TYPE_BLIND_BOX:
+                return ASSET_TYPE_BLIND_BOX;
+            default:
+                throw new IllegalArgumentException("无效的资产类型编码：" + code);
+        }
+    }
+
+    private static int writeField(byte[] out, int pos, byte[] value) {
+        int length = value.length;
+        while ((length & ~0x7F) != 0) {
+            out[pos++] = (byte) ((length & 0x7F) | 0x80);
+            length >>>= 7;
+        }
+        out[pos++] = (byte) length;
+        System.arraycopy(value, 0, out, pos, value.length);
+        return pos + value.length;
+    }
+
+    private static String readString(byte[] state, int[] cursor) {
+        int length = readVarint(state, cursor);
+        String value = new String(state, cursor[0], length, StandardCharsets.UTF_8);
+        cursor[0] += length;
+        return value;
+    }
+
+    private static int readVarint(byte[] state, int[] cursor) {
+        int result = 0;
+        int shift = 0;
+        while (true) {
+            if (cursor[0] >= state.length || shift > 28) {
+                throw new IllegalArgumentException("资产状态数据损坏");
+            }
+            byte b = state[cursor[0]++];
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+            shift += 7;
+        }
+        if (result < 0 || cursor[0] + result > state.length) {
+            throw new IllegalArgumentException("资产状态数据损坏");
+        }
+        return result;
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+}
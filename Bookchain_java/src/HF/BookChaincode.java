@@ -0,0 +1,460 @@
+package org.bookchain;
+
+import org.hyperledger.fabric.shim.ChaincodeBase;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
+import org.hyperledger.fabric.shim.ledger.KeyModification;
+import org.hyperledger.fabric.shim.ledger.KeyValue;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIteratorWithMetadata;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 书籍区块链智能合约，实现资产创建、转移、查询等功能
+ */
+public class BookChaincode extends ChaincodeBase {
+
+    // 资产类型：普通书籍
+    private static final String ASSET_TYPE_NORMAL = AssetCodec.ASSET_TYPE_NORMAL;
+    // 资产类型：盲盒书籍
+    private static final String ASSET_TYPE_BLIND_BOX = AssetCodec.ASSET_TYPE_BLIND_BOX;
+    // 资产状态字段
+    private static final String FIELD_ASSET_ID = "assetId";
+    private static final String FIELD_OWNER = "owner";
+    private static final String FIELD_TYPE = "type";
+    private static final String FIELD_TIMESTAMP = "timestamp";
+    // 批量创建参数字段（JSON数组）
+    private static final String FIELD_ASSETS = "assets";
+    // 分页参数字段
+    private static final String FIELD_PAGE_SIZE = "pageSize";
+    private static final String FIELD_BOOKMARK = "bookmark";
+    private static final String FIELD_LAST_KEY = "lastKey";
+    // 类型二级索引（复合键：type~assetId），值为占位字节
+    private static final String INDEX_TYPE_ASSET = "type~assetId";
+    private static final byte[] INDEX_VALUE = new byte[]{0x00};
+    // 索引回填单次处理的默认条数，避免单笔交易读写集过大
+    private static final int DEFAULT_MIGRATE_PAGE_SIZE = 500;
+    // 分页查询的默认及最大单页条数，限制单次响应大小
+    private static final int DEFAULT_QUERY_PAGE_SIZE = 50;
+    private static final int MAX_QUERY_PAGE_SIZE = 500;
+    // 资产变更事件名，负载为变更资产ID的JSON数组，供客户端精确失效缓存
+    private static final String EVENT_ASSET_CHANGED = "AssetChanged";
+    // 单笔批量创建交易允许的最大资产数，客户端批量提交的上限以此为准（编译期常量，客户端不依赖链码类）
+    public static final int MAX_BATCH_SIZE = 500;
+
+    @Override
+    public Response init(ChaincodeStub stub) {
+        // 初始化表结构（示例：使用键值对存储资产）
+        return newSuccessResponse("链码初始化成功");
+    }
+
+    @Override
+    public Response invoke(ChaincodeStub stub) {
+        String function = stub.getFunction();
+        Map<String, String> params = getParameters(stub);
+
+        try {
+            switch (function) {
+                case "createAsset":
+                    return createAsset(stub, params);
+                case "createAssetsBatch":
+                    return createAssetsBatch(stub, params);
+                case "transferAsset":
+                    return transferAsset(stub, params);
+                case "readAsset":
+                    return readAsset(stub, params);
+                case "queryAllAssets":
+                    return queryAllAssets(stub, params);
+                case "queryAssetsPage":
+                    return queryAssetsPage(stub, params);
+                case "queryAssetHistory":
+                    return queryAssetHistory(stub, params);
+                case "migrateTypeIndex":
+                    return migrateTypeIndex(stub, params);
+                default:
+                    return newErrorResponse("无效的函数调用");
+            }
+        } catch (Exception e) {
+            return newErrorResponse("操作失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 创建资产（书籍/盲盒）
+     */
+    private Response createAsset(ChaincodeStub stub, Map<String, String> params) {
+        String assetId = params.get(FIELD_ASSET_ID);
+        String owner = params.get(FIELD_OWNER);
+        String type = params.getOrDefault(FIELD_TYPE, ASSET_TYPE_NORMAL);
+        String timestamp = params.getOrDefault(FIELD_TIMESTAMP, String.valueOf(System.currentTimeMillis()));
+
+        String error = putAsset(stub, assetId, owner, type, timestamp);
+        if (error != null) {
+            return newErrorResponse(error);
+        }
+        emitAssetChanged(stub, new JSONArray().put(assetId));
+        return newSuccessResponse("资产创建成功");
+    }
+
+    /**
+     * 批量创建资产，一笔交易写入多本书籍/盲盒
+     * 参数assets为JSON数组，元素字段同createAsset；单个资产校验失败不影响其余资产写入
+     * 返回与入参顺序一致的结果数组：[{"assetId": "...", "success": true, "message": "..."}]
+     */
+    private Response createAssetsBatch(ChaincodeStub stub, Map<String, String> params) {
+        String assetsJson = params.get(FIELD_ASSETS);
+        if (assetsJson == null) {
+            return newErrorResponse("资产列表为必填项");
+        }
+        JSONArray assets = new JSONArray(assetsJson);
+        if (assets.length() > MAX_BATCH_SIZE) {
+            return newErrorResponse("单批资产数量不能超过" + MAX_BATCH_SIZE);
+        }
+
+        String defaultTimestamp = String.valueOf(System.currentTimeMillis());
+        Set<String> seen = new HashSet<>();
+        JSONArray results = new JSONArray();
+        JSONArray changed = new JSONArray();
+        for (int i = 0; i < assets.length(); i++) {
+            JSONObject item = assets.getJSONObject(i);
+            String assetId = item.optString(FIELD_ASSET_ID, null);
+            String error;
+            if (assetId != null && !seen.add(assetId)) {
+                // 同一交易内读不到自身写入，重复ID会破坏类型索引，直接拒绝
+                error = "同一批次内资产ID重复";
+            } else {
+                error = putAsset(stub, assetId,
+                        item.optString(FIELD_OWNER, null),
+                        item.optString(FIELD_TYPE, ASSET_TYPE_NORMAL),
+                        item.optString(FIELD_TIMESTAMP, defaultTimestamp));
+            }
+
+            if (error == null) {
+                changed.put(assetId);
+            }
+            JSONObject result = new JSONObject();
+            result.put(FIELD_ASSET_ID, assetId);
+            result.put("success", error == null);
+            result.put("message", error == null ? "资产创建成功" : error);
+            results.put(result);
+        }
+
+        if (changed.length() > 0) {
+            emitAssetChanged(stub, changed);
+        }
+        return newSuccessResponse(results.toString());
+    }
+
+    /**
+     * 校验并写入单个资产，同时维护类型索引
+     * @return 校验失败时返回错误信息，成功返回null
+     */
+    private String putAsset(ChaincodeStub stub, String assetId, String owner, String type, String timestamp) {
+        // 校验参数
+        if (assetId == null || owner == null) {
+            return "资产ID和所有者地址为必填项";
+        }
+        if (!type.equals(ASSET_TYPE_NORMAL) && !type.equals(ASSET_TYPE_BLIND_BOX)) {
+            return "无效的资产类型（NORMAL/BLIND_BOX）";
+        }
+
+        // 覆盖已有资产且类型变化时，删除旧的类型索引
+        byte[] existing = stub.getState(assetId);
+        if (existing != null && existing.length > 0) {
+            String oldType = AssetCodec.readType(existing);
+            if (oldType != null && !oldType.equals(type)) {
+                stub.delState(typeIndexKey(stub, oldType, assetId));
+            }
+        }
+
+        // 以二进制格式写入区块链，并维护类型索引
+        stub.putState(assetId, AssetCodec.encode(assetId, owner, type, timestamp));
+        stub.putState(typeIndexKey(stub, type, assetId), INDEX_VALUE);
+        return null;
+    }
+
+    /**
+     * 转移资产所有权
+     */
+    private Response transferAsset(ChaincodeStub stub, Map<String, String> params) {
+        String assetId = params.get(FIELD_ASSET_ID);
+        String newOwner = params.get(FIELD_OWNER);
+
+        // 校验参数
+        if (assetId == null || newOwner == null) {
+            return newErrorResponse("资产ID和新所有者地址为必填项");
+        }
+
+        // 查询当前资产状态
+        byte[] assetBytes = stub.getState(assetId);
+        if (assetBytes == null || assetBytes.length == 0) {
+            return newErrorResponse("资产不存在");
+        }
+
+        // 更新所有者：二进制状态直接替换owner字段，旧版JSON状态顺带升级为二进制格式
+        stub.putState(assetId, AssetCodec.withOwner(assetBytes, newOwner));
+        emitAssetChanged(stub, new JSONArray().put(assetId));
+
+        return newSuccessResponse("所有权转移成功");
+    }
+
+    /**
+     * 查询单个资产
+     */
+    private Response readAsset(ChaincodeStub stub, Map<String, String> params) {
+        String assetId = params.get(FIELD_ASSET_ID);
+        if (assetId == null) {
+            return newErrorResponse("资产ID为必填项");
+        }
+
+        byte[] assetBytes = stub.getState(assetId);
+        if (assetBytes == null || assetBytes.length == 0) {
+            return newErrorResponse("资产不存在");
+        }
+
+        return newSuccessResponse(AssetCodec.decode(assetBytes).toJson().toString());
+    }
+
+    /**
+     * 查询所有资产（可按类型过滤）
+     * 指定类型时走类型索引，只读取匹配的资产键
+     */
+    private Response queryAllAssets(ChaincodeStub stub, Map<String, String> params) {
+        String typeFilter = params.get(FIELD_TYPE);
+        if (typeFilter != null) {
+            return queryAssetsByType(stub, typeFilter);
+        }
+
+        JSONArray assets = new JSONArray();
+        try (QueryResultsIterator<KeyValue> iter = stub.getStateByRange("", "")) {
+            for (KeyValue kv : iter) {
+                assets.put(AssetCodec.decode(kv.getValue()).toJson());
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("资产查询失败", e);
+        }
+
+        return newSuccessResponse(assets.toString());
+    }
+
+    /**
+     * 按类型索引查询资产
+     */
+    private Response queryAssetsByType(ChaincodeStub stub, String type) {
+        JSONArray assets = new JSONArray();
+        CompositeKey prefix = stub.createCompositeKey(INDEX_TYPE_ASSET, type);
+        try (QueryResultsIterator<KeyValue> iter = stub.getStateByPartialCompositeKey(prefix)) {
+            for (KeyValue kv : iter) {
+                String assetId = stub.splitCompositeKey(kv.getKey()).getAttributes().get(1);
+                byte[] assetBytes = stub.getState(assetId);
+                if (assetBytes == null || assetBytes.length == 0) {
+                    continue; // 索引残留，资产已不存在
+                }
+                assets.put(AssetCodec.decode(assetBytes).toJson());
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("资产查询失败", e);
+        }
+
+        return newSuccessResponse(assets.toString());
+    }
+
+    /**
+     * 分页查询资产（可按类型过滤），基于书签续查
+     * 返回 {"assets": [...], "count": n, "bookmark": "..."}，书签为空表示已到末页
+     */
+    private Response queryAssetsPage(ChaincodeStub stub, Map<String, String> params) {
+        int pageSize = Math.min(parsePageSize(params.get(FIELD_PAGE_SIZE), DEFAULT_QUERY_PAGE_SIZE),
+                MAX_QUERY_PAGE_SIZE);
+        String bookmark = params.getOrDefault(FIELD_BOOKMARK, "");
+        String typeFilter = params.get(FIELD_TYPE);
+
+        JSONArray assets = new JSONArray();
+        String nextBookmark;
+        if (typeFilter != null) {
+            CompositeKey prefix = stub.createCompositeKey(INDEX_TYPE_ASSET, typeFilter);
+            try (QueryResultsIteratorWithMetadata<KeyValue> iter =
+                         stub.getStateByPartialCompositeKeyWithPagination(prefix, pageSize, bookmark)) {
+                for (KeyValue kv : iter) {
+                    String assetId = stub.splitCompositeKey(kv.getKey()).getAttributes().get(1);
+                    byte[] assetBytes = stub.getState(assetId);
+                    if (assetBytes == null || assetBytes.length == 0) {
+                        continue; // 索引残留，资产已不存在
+                    }
+                    assets.put(AssetCodec.decode(assetBytes).toJson());
+                }
+                nextBookmark = pageBookmark(iter, pageSize);
+            } catch (Exception e) {
+                throw new RuntimeException("资产分页查询失败", e);
+            }
+        } else {
+            try (QueryResultsIteratorWithMetadata<KeyValue> iter =
+                         stub.getStateByRangeWithPagination("", "", pageSize, bookmark)) {
+                for (KeyValue kv : iter) {
+                    assets.put(AssetCodec.decode(kv.getValue()).toJson());
+                }
+                nextBookmark = pageBookmark(iter, pageSize);
+            } catch (Exception e) {
+                throw new RuntimeException("资产分页查询失败", e);
+            }
+        }
+
+        JSONObject page = new JSONObject();
+        page.put("assets", assets);
+        page.put("count", assets.length());
+        page.put(FIELD_BOOKMARK, nextBookmark);
+        return newSuccessResponse(page.toString());
+    }
+
+    /**
+     * 计算下一页书签，本页未取满时说明已无更多数据
+     */
+    private String pageBookmark(QueryResultsIteratorWithMetadata<KeyValue> iter, int pageSize) {
+        if (iter.getMetadata().getFetchedRecordsCount() < pageSize) {
+            return "";
+        }
+        return iter.getMetadata().getBookmark();
+    }
+
+    /**
+     * 分页查询资产历史（所有权变更记录），来自getHistoryForKey，按提交顺序由新到旧
+     * 历史查询不支持原生分页，以上一页最后一条的交易ID作为续查书签：跳过书签及更新的记录，
+     * 新提交的变更只会出现在最前面，不影响已翻过的页
+     */
+    private Response queryAssetHistory(ChaincodeStub stub, Map<String, String> params) {
+        String assetId = params.get(FIELD_ASSET_ID);
+        if (assetId == null) {
+            return newErrorResponse("资产ID为必填项");
+        }
+        int pageSize = Math.min(parsePageSize(params.get(FIELD_PAGE_SIZE), DEFAULT_QUERY_PAGE_SIZE),
+                MAX_QUERY_PAGE_SIZE);
+        String bookmark = params.getOrDefault(FIELD_BOOKMARK, "");
+
+        JSONArray history = new JSONArray();
+        String nextBookmark = "";
+        boolean resumed = bookmark.isEmpty();
+        try (QueryResultsIterator<KeyModification> iter = stub.getHistoryForKey(assetId)) {
+            for (KeyModification modification : iter) {
+                if (!resumed) {
+                    resumed = modification.getTxId().equals(bookmark);
+                    continue;
+                }
+                if (history.length() == pageSize) {
+                    // 本页已满且还有更早的记录
+                    nextBookmark = history.getJSONObject(pageSize - 1).getString("txId");
+                    break;
+                }
+                JSONObject entry = new JSONObject();
+                entry.put("txId", modification.getTxId());
+                entry.put(FIELD_TIMESTAMP, modification.getTimestamp().toString());
+                entry.put("isDelete", modification.isDeleted());
+                byte[] value = modification.getValue();
+                if (!modification.isDeleted() && value != null && value.length > 0) {
+                    entry.put("asset", AssetCodec.decode(value).toJson());
+                }
+                history.put(entry);
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("资产历史查询失败", e);
+        }
+        if (!resumed) {
+            return newErrorResponse("无效的历史书签");
+        }
+
+        JSONObject page = new JSONObject();
+        page.put(FIELD_ASSET_ID, assetId);
+        page.put("history", history);
+        page.put("count", history.length());
+        page.put(FIELD_BOOKMARK, nextBookmark);
+        return newSuccessResponse(page.toString());
+    }
+
+    /**
+     * 回填类型索引（用于升级前已上链的存量资产）
+     * 分页查询只允许在只读交易中使用，这里用普通范围查询，处理pageSize个键后停止，
+     * 返回本批处理数量及最后处理的键，下一批从该键之后继续，返回空表示回填完成
+     * 范围查询只覆盖普通键，不会扫描到复合键形式的索引条目本身
+     */
+    private Response migrateTypeIndex(ChaincodeStub stub, Map<String, String> params) {
+        int pageSize = parsePageSize(params.get(FIELD_PAGE_SIZE), DEFAULT_MIGRATE_PAGE_SIZE);
+        String lastKey = params.getOrDefault(FIELD_LAST_KEY, "");
+
+        int indexed = 0;
+        String resumeKey = "";
+        try (QueryResultsIterator<KeyValue> iter = stub.getStateByRange(lastKey, "")) {
+            for (KeyValue kv : iter) {
+                if (kv.getKey().equals(lastKey)) {
+                    continue; // 起始键包含在范围内，上一批已处理
+                }
+                if (indexed == pageSize) {
+                    resumeKey = lastKey; // 还有未处理的键
+                    break;
+                }
+                String type = AssetCodec.readType(kv.getValue());
+                stub.putState(typeIndexKey(stub, type, kv.getKey()), INDEX_VALUE);
+                lastKey = kv.getKey();
+                indexed++;
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("索引回填失败", e);
+        }
+
+        JSONObject result = new JSONObject();
+        result.put("indexed", indexed);
+        result.put(FIELD_LAST_KEY, resumeKey);
+        return newSuccessResponse(result.toString());
+    }
+
+    /**
+     * 发出资产变更事件（每笔交易仅保留一个事件，批量创建时合并为一个ID数组）
+     */
+    private void emitAssetChanged(ChaincodeStub stub, JSONArray assetIds) {
+        stub.setEvent(EVENT_ASSET_CHANGED, assetIds.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 构造类型索引复合键
+     */
+    private String typeIndexKey(ChaincodeStub stub, String type, String assetId) {
+        return stub.createCompositeKey(INDEX_TYPE_ASSET, type, assetId).toString();
+    }
+
+    /**
+     * 解析分页大小，非法值时使用默认值
+     */
+    private int parsePageSize(String value, int defaultSize) {
+        if (value == null) {
+            return defaultSize;
+        }
+        try {
+            int size = Integer.parseInt(value);
+            return size > 0 ? size : defaultSize;
+        } catch (NumberFormatException e) {
+            return defaultSize;
+        }
+    }
+
+    /**
+     * 解析调用参数（函数名之后的参数按 key, value, key, value... 成对解析）
+     */
+    private Map<String, String> getParameters(ChaincodeStub stub) {
+        List<String> args = stub.getParameters();
+        Map<String, String> params = new HashMap<>();
+        for (int i = 0; i + 1 < args.size(); i += 2) {
+            params.put(args.get(i), args.get(i + 1));
+        }
+        return params;
+    }
+
+    public static void main(String[] args) {
+        new BookChaincode().start(args);
+    }
+}
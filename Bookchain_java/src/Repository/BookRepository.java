@@ -1,11 +1,20 @@
 package com.bookchain.repository;
 
 import com.bookchain.entity.Book;
+import com.bookchain.service.BookView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Book数据访问接口，继承自JpaRepository，用于对Book实体进行数据库操作
@@ -13,6 +22,12 @@ import java.util.Optional;
 @Repository
 public interface BookRepository extends JpaRepository<Book, Long> {
 
+    // 书籍视图的构造表达式与联表子句，只查展示字段，不加载所有者实体（各查询只追加where/order by）
+    String VIEW_SELECT_FROM = "select new com.bookchain.service.BookView(" +
+            "b.bookId, b.title, b.author, b.description, b.category, b.isBlindBox, " +
+            "b.blockchainTxHash, b.chainStatus, b.uploadTime, o.userId) " +
+            "from Book b left join b.owner o ";
+
     // 根据书籍标题模糊查询书籍列表
     List<Book> findByTitleContaining(String title);
 
@@ -22,9 +37,48 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     // 根据是否为盲盒状态查询书籍列表
     List<Book> findByIsBlindBox(boolean isBlindBox);
 
+    // 按上传时间倒序分页查询书籍（可过滤盲盒状态）
+    List<Book> findByIsBlindBoxOrderByUploadTimeDesc(boolean isBlindBox, Pageable pageable);
+
     // 根据所有者用户ID查询其拥有的书籍列表
     List<Book> findByOwnerUserId(Long ownerUserId);
 
     // 根据区块链交易哈希查询书籍
     Optional<Book> findByBlockchainTxHash(String blockchainTxHash);
+
+    // 键集分页：按ID升序查询游标之后的书籍（连同所有者），可过滤盲盒
+    @Query("select b from Book b left join fetch b.owner where b.bookId > :afterId " +
+            "and (:includeBlindBox = true or b.isBlindBox = false) order by b.bookId")
+    List<Book> findPageAfter(@Param("afterId") Long afterId,
+                             @Param("includeBlindBox") boolean includeBlindBox,
+                             Pageable pageable);
+
+    // 按ID升序分段查询指定时间之后修改过的书籍（连同所有者），用于检索索引追赶
+    @Query("select b from Book b left join fetch b.owner where b.updateTime >= :since " +
+            "and b.bookId > :afterId order by b.bookId")
+    List<Book> findUpdatedSince(@Param("since") Date since, @Param("afterId") Long afterId, Pageable pageable);
+
+    // 键集分页：按ID升序查询游标之后的书籍视图，可过滤盲盒
+    @Query(VIEW_SELECT_FROM + "where b.bookId > :afterId " +
+            "and (:includeBlindBox = true or b.isBlindBox = false) order by b.bookId")
+    List<BookView> findViewPageAfter(@Param("afterId") Long afterId,
+                                     @Param("includeBlindBox") boolean includeBlindBox,
+                                     Pageable pageable);
+
+    // 按ID升序沿数据库游标流式读取书籍视图，用于大批量导出，须在事务内消费
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(VIEW_SELECT_FROM + "where (:includeBlindBox = true or b.isBlindBox = false) order by b.bookId")
+    Stream<BookView> streamViews(@Param("includeBlindBox") boolean includeBlindBox);
+
+    // 按ID升序分段查询非盲盒书籍的(书籍ID, 类别)，用于重建类别索引
+    @Query("select b.bookId, b.category from Book b where b.isBlindBox = false and b.bookId > :afterId order by b.bookId")
+    List<Object[]> findCategoryPostings(@Param("afterId") Long afterId, Pageable pageable);
+
+    // 按ID升序分段查询(所有者ID, 书籍ID, 是否盲盒)，用于重建书籍共现模型
+    @Query("select b.owner.userId, b.bookId, b.isBlindBox from Book b " +
+            "where b.owner is not null and b.bookId > :afterId order by b.bookId")
+    List<Object[]> findOwnershipPostings(@Param("afterId") Long afterId, Pageable pageable);
 }
@@ -0,0 +1,12 @@
+package com.bookchain.repository;
+
+import com.bookchain.entity.ChainCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * 区块监听检查点数据访问接口，继承自JpaRepository，用于对ChainCheckpoint实体进行数据库操作
+ */
+@Repository
+public interface ChainCheckpointRepository extends JpaRepository<ChainCheckpoint, String> {
+}
@@ -0,0 +1,49 @@
+package com.bookchain.repository;
+
+import com.bookchain.entity.ChainOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 上链发件箱数据访问接口，继承自JpaRepository，用于对ChainOutbox实体进行数据库操作
+ */
+@Repository
+public interface ChainOutboxRepository extends JpaRepository<ChainOutbox, Long> {
+
+    // 按ID顺序查询指定状态且已到重试时间的发件箱记录（分页限制条数）
+    @Query("select o from ChainOutbox o where o.status = :status " +
+            "and (o.nextAttemptTime is null or o.nextAttemptTime <= :now) order by o.outboxId asc")
+    List<ChainOutbox> findDue(@Param("status") String status, @Param("now") Date now, Pageable pageable);
+
+    // 条件更新状态，仅当当前状态为from时生效，用于多实例下认领记录
+    @Modifying
+    @Query("update ChainOutbox o set o.status = :to, o.updateTime = :now " +
+            "where o.outboxId = :outboxId and o.status = :from")
+    int transitionStatus(@Param("outboxId") Long outboxId,
+                         @Param("from") String from,
+                         @Param("to") String to,
+                         @Param("now") Date now);
+
+    // 批量条件更新状态，用于整组回写上链结果
+    @Modifying
+    @Query("update ChainOutbox o set o.status = :to, o.updateTime = :now " +
+            "where o.outboxId in :outboxIds and o.status = :from")
+    int transitionStatusAll(@Param("outboxIds") Collection<Long> outboxIds,
+                            @Param("from") String from,
+                            @Param("to") String to,
+                            @Param("now") Date now);
+
+    // 将租约过期（更新时间早于staleBefore）的处理中记录重置为待处理，恢复已退出实例中断的上链任务
+    @Modifying
+    @Query("update ChainOutbox o set o.status = 'PENDING', o.updateTime = :now " +
+            "where o.status = 'PROCESSING' and o.updateTime < :staleBefore")
+    int resetStaleProcessing(@Param("staleBefore") Date staleBefore, @Param("now") Date now);
+}
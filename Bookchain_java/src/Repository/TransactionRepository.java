@@ -1,11 +1,20 @@
 package com.bookchain.repository;
 
 import com.bookchain.entity.Transaction;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * 交易记录数据访问接口，继承自JpaRepository，用于对Transaction实体进行数据库操作
@@ -13,18 +22,56 @@ import java.util.Optional;
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
 
-    // 根据关联的书籍ID查询交易记录列表
-    List<Transaction> findByBookBookId(Long bookId);
+    // 根据关联的书籍ID查询交易记录视图
+    @Query(TransactionView.SELECT_FROM + "where b.bookId = :bookId order by t.transactionId")
+    List<TransactionView> findViewsByBookId(@Param("bookId") Long bookId);
 
-    // 根据交易发起方用户ID查询交易记录列表
-    List<Transaction> findBySenderUserId(Long senderUserId);
+    // 根据交易发起方用户ID查询交易记录视图
+    @Query(TransactionView.SELECT_FROM + "where s.userId = :userId order by t.transactionId")
+    List<TransactionView> findViewsBySender(@Param("userId") Long userId);
 
-    // 根据交易接收方用户ID查询交易记录列表
-    List<Transaction> findByReceiverUserId(Long receiverUserId);
+    // 根据交易接收方用户ID查询交易记录视图
+    @Query(TransactionView.SELECT_FROM + "where r.userId = :userId order by t.transactionId")
+    List<TransactionView> findViewsByReceiver(@Param("userId") Long userId);
 
-    // 根据交易类型查询交易记录列表
-    List<Transaction> findByTransactionType(String transactionType);
+    // 查询用户作为发起方或接收方的交易记录视图，单次查询（两列各有索引，可走索引合并）
+    @Query(TransactionView.SELECT_FROM + "where s.userId = :userId or r.userId = :userId order by t.transactionId")
+    List<TransactionView> findViewsByUser(@Param("userId") Long userId);
 
-    // 根据区块链交易哈希查询交易记录
-    Optional<Transaction> findByBlockchainTxHash(String blockchainTxHash);
+    // 根据交易类型查询交易记录视图
+    @Query(TransactionView.SELECT_FROM + "where t.transactionType = :transactionType order by t.transactionId")
+    List<TransactionView> findViewsByType(@Param("transactionType") String transactionType);
+
+    // 根据区块链交易哈希查询交易记录视图（批量创建的一笔链上交易对应多本书籍）
+    @Query(TransactionView.SELECT_FROM + "where t.blockchainTxHash = :txHash order by t.transactionId")
+    List<TransactionView> findViewsByTxHash(@Param("txHash") String txHash);
+
+    // 键集分页：按ID升序查询游标之后的交易记录视图
+    @Query(TransactionView.SELECT_FROM + "where t.transactionId > :afterId order by t.transactionId")
+    List<TransactionView> findPageAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // 按ID升序沿数据库游标流式读取交易记录视图，用于大批量导出，须在事务内消费
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(TransactionView.SELECT_FROM + "order by t.transactionId")
+    Stream<TransactionView> streamAll();
+
+    // 批量查询已投影的交易哈希，用于区块回放时按交易ID去重
+    @Query("select distinct t.blockchainTxHash from Transaction t where t.blockchainTxHash in :txHashes")
+    Set<String> findExistingTxHashes(@Param("txHashes") Collection<String> txHashes);
+
+    // 按ID升序分段查询(交易ID, 书籍ID, 是否盲盒, 交易类型, 交易时间)，用于热度排行从快照检查点追赶
+    @Query("select t.transactionId, b.bookId, b.isBlindBox, t.transactionType, t.transactionTime " +
+            "from Transaction t join t.book b where t.transactionId > :afterId order by t.transactionId")
+    List<Object[]> findActivitySince(@Param("afterId") Long afterId, Pageable pageable);
+
+    // 按ID升序分段查询(交易ID, 发起方ID, 接收方ID, 书籍ID)，用于从历史所有权重建书籍共现模型
+    @Query("select t.transactionId, s.userId, r.userId, b.bookId from Transaction t join t.book b " +
+            "left join t.sender s left join t.receiver r where t.transactionId > :afterId order by t.transactionId")
+    List<Object[]> findOwnershipHistorySince(@Param("afterId") Long afterId, Pageable pageable);
+
+    // 查询书籍最近一条交易记录（其接收方即当前所有者）
+    Optional<Transaction> findTopByBookBookIdOrderByTransactionIdDesc(Long bookId);
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package com.bookchain.repository;
+
+import java.util.Date;
+
+/**
+ * 交易记录只读视图，由JPQL构造表达式一次联表查出书籍与双方用户的展示字段，
+ * 序列化时不再触发懒加载关联的逐行查询
+ */
+public record TransactionView(
+        Long transactionId,
+        String transactionType,
+        Date transactionTime,
+        String blockchainTxHash,
+        String remark,
+        Long bookId,
+        String bookTitle,
+        boolean bookBlindBox,
+        Long senderUserId,
+        String senderUsername,
+        Long receiverUserId,
+        String receiverUsername
+) {
+    /**
+     * 构造表达式的select列表与公共联表子句，各查询只追加where/order by
+     */
+    static final String SELECT_FROM = "select new com.bookchain.repository.TransactionView(" +
+            "t.transactionId, t.transactionType, t.transactionTime, t.blockchainTxHash, t.remark, " +
+            "b.bookId, b.title, b.isBlindBox, s.userId, s.username, r.userId, r.username) " +
+            "from Transaction t left join t.book b left join t.sender s left join t.receiver r ";
+}
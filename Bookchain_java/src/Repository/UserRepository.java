@@ -1,23 +1,38 @@
 package com.bookchain.repository;
 
 import com.bookchain.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
  * 用户数据访问接口，继承自JpaRepository，提供对User实体的基本数据库操作
  */
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
 
-    // 根据用户名查找用户
-    Optional<User> findByUsername(String username);
-
-    // 根据电子邮箱查找用户
+    // 根据电子邮箱查找用户（查询缓存：结果只存用户ID，实体从二级缓存取）
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByEmail(String email);
 
-    // 根据区块链地址查找用户
+    // 根据区块链地址查找用户（查询缓存）
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByBlockchainAddress(String blockchainAddress);
+
+    // 根据区块链地址批量查找用户
+    List<User> findByBlockchainAddressIn(Collection<String> blockchainAddresses);
+
+    // 按用户ID升序分页读取(用户ID, 邮箱, 用户名, 区块链地址)，用于构建注册查重过滤器
+    @Query("select u.userId, u.email, u.username, u.blockchainAddress from User u " +
+            "where u.userId > :afterId order by u.userId")
+    List<Object[]> findIdentityPage(@Param("afterId") Long afterId, Pageable pageable);
 }
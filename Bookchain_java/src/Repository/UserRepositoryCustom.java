@@ -0,0 +1,14 @@
+package com.bookchain.repository;
+
+import com.bookchain.entity.User;
+
+import java.util.Optional;
+
+/**
+ * 用户自定义数据访问接口，提供基于Hibernate自然键缓存的查询
+ */
+public interface UserRepositoryCustom {
+
+    // 根据用户名（自然键）查找用户，命中自然键缓存和实体缓存时不访问数据库
+    Optional<User> findByUsername(String username);
+}
@@ -0,0 +1,25 @@
+package com.bookchain.repository;
+
+import com.bookchain.entity.User;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+
+import java.util.Optional;
+
+/**
+ * 用户自定义数据访问实现，通过Hibernate自然键加载用户
+ */
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+    private final EntityManager entityManager;
+
+    public UserRepositoryCustomImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Optional<User> findByUsername(String username) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(User.class)
+                .loadOptional(username);
+    }
+}
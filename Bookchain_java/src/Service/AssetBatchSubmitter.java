@@ -0,0 +1,169 @@
+package com.bookchain.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * 资产批量提交器，将短时间内的多次资产创建请求合并为一笔链上交易
+ * 攒够maxBatchSize条或等待lingerMillis后提交，每个调用方通过各自的Future拿到结果
+ */
+class AssetBatchSubmitter implements AutoCloseable {
+
+    /**
+     * 待上链的单个资产
+     */
+    record AssetRequest(String assetId, String owner, String type, String timestamp) {}
+
+    /**
+     * 一批资产的提交结果：交易ID，以及与请求顺序一一对应的错误信息（成功为null）
+     * 按位置而不是资产ID对应，同一批中重复的资产ID各自拿到自己的结果
+     */
+    record BatchResult(String txId, List<String> errors) {}
+
+    /**
+     * 实际执行批量上链的回调
+     */
+    @FunctionalInterface
+    interface BatchHandler {
+        BatchResult submit(List<AssetRequest> batch) throws Exception;
+    }
+
+    private record Pending(AssetRequest request, CompletableFuture<String> future) {}
+
+    private final BatchHandler handler;
+    private final int maxBatchSize;
+    private final long lingerNanos;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Semaphore inFlight;
+    private final ExecutorService submitExecutor;
+    private final Thread collector;
+    private volatile boolean running = true;
+
+    AssetBatchSubmitter(BatchHandler handler, int maxBatchSize, long lingerMillis, int maxInFlight,
+                        boolean virtualThreads) {
+        if (maxBatchSize <= 0 || lingerMillis < 0 || maxInFlight <= 0) {
+            throw new IllegalArgumentException("批量提交参数无效");
+        }
+        this.handler = handler;
+        this.maxBatchSize = maxBatchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        this.inFlight = new Semaphore(maxInFlight);
+        // 虚拟线程模式下每批一个虚拟线程（并发仍由inFlight限制），等待提交确认时不占用平台线程
+        this.submitExecutor = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("asset-batch-submit-", 0).factory())
+                : Executors.newFixedThreadPool(maxInFlight, r -> {
+                    Thread t = new Thread(r, "asset-batch-submit");
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.collector = new Thread(this::collectLoop, "asset-batch-collector");
+        this.collector.setDaemon(true);
+        this.collector.start();
+    }
+
+    /**
+     * 提交单个资产，返回该资产所在链上交易的交易ID
+     */
+    CompletableFuture<String> submit(AssetRequest request) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        if (!running) {
+            future.completeExceptionally(new IllegalStateException("批量提交器已关闭"));
+            return future;
+        }
+        Pending pending = new Pending(request, future);
+        queue.add(pending);
+        // 检查与入队之间可能已开始关闭，close的最后一次清空也可能早于入队：入队后再检查一次，
+        // 仍能从队列中移除说明没有人会处理它，由这里失败；移除失败则已被收集或清空，由对方完成
+        if (!running && queue.remove(pending)) {
+            future.completeExceptionally(new IllegalStateException("批量提交器已关闭"));
+        }
+        return future;
+    }
+
+    /**
+     * 收集循环：阻塞等待首个请求，再在等待窗口内尽量攒满一批
+     */
+    private void collectLoop() {
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<Pending> batch = new ArrayList<>(maxBatchSize);
+                batch.add(first);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                // 在途批次已满时阻塞收集，期间新请求继续排队，下一批自然更大
+                inFlight.acquire();
+                submitExecutor.execute(() -> {
+                    try {
+                        submitBatch(batch);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+    }
+
+    private void submitBatch(List<Pending> batch) {
+        List<AssetRequest> requests = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            requests.add(pending.request());
+        }
+        try {
+            BatchResult result = handler.submit(requests);
+            if (result.errors().size() != batch.size()) {
+                throw new IllegalStateException("批量上链结果数量与请求数量不一致");
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                Pending pending = batch.get(i);
+                String error = result.errors().get(i);
+                if (error == null) {
+                    pending.future().complete(result.txId());
+                } else {
+                    pending.future().completeExceptionally(new IllegalArgumentException(error));
+                }
+            }
+        } catch (Exception e) {
+            for (Pending pending : batch) {
+                pending.future().completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * 停止接收新请求，提交队列中剩余资产后退出
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            collector.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        submitExecutor.shutdown();
+        try {
+            submitExecutor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Pending left;
+        while ((left = queue.poll()) != null) {
+            left.future().completeExceptionally(new IllegalStateException("批量提交器已关闭"));
+        }
+    }
+}
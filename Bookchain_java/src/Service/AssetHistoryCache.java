@@ -0,0 +1,71 @@
+package com.bookchain.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 链上资产历史分页缓存
+ * 历史由新到旧排列：带书签的页只包含书签之前已提交的记录，永不变化，只按容量淘汰；
+ * 首页会随新交易变化，单独缓存，由链码资产变更事件失效，TTL兜底
+ * 两类缓存的值都是加载中的future，网关查询在调用线程中、缓存锁之外执行（见CallerRunsLoad）
+ */
+class AssetHistoryCache {
+    private final AsyncCache<String, String> immutablePages;
+    private final Cache<String, Map<Integer, CompletableFuture<String>>> headPages; // 资产ID -> (页大小 -> 首页)
+
+    AssetHistoryCache(long maxSize, Duration headTtl, MeterRegistry meterRegistry) {
+        this.immutablePages = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .buildAsync();
+        this.headPages = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(headTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, immutablePages, "assetHistory");
+        CaffeineCacheMetrics.monitor(meterRegistry, headPages, "assetHistoryHead");
+    }
+
+    /**
+     * 读取一页历史，未命中时在当前线程调用loader查询并写入缓存；loader抛出异常时不缓存
+     */
+    String get(String assetId, int pageSize, String bookmark, Supplier<String> loader) {
+        CompletableFuture<String> claim = new CompletableFuture<>();
+        if (bookmark == null || bookmark.isEmpty()) {
+            Map<Integer, CompletableFuture<String>> pages = headPages.get(assetId, id -> new ConcurrentHashMap<>());
+            CompletableFuture<String> entry = pages.computeIfAbsent(pageSize, size -> claim);
+            if (entry == claim) {
+                claim.whenComplete((page, e) -> {
+                    if (e != null) {
+                        pages.remove(pageSize, claim); // 失败的加载不缓存，下次读取重试
+                    }
+                });
+            }
+            return CallerRunsLoad.await(entry, claim, loader);
+        }
+        CompletableFuture<String> entry = immutablePages.get(
+                assetId + '\u0000' + pageSize + '\u0000' + bookmark, (key, executor) -> claim);
+        return CallerRunsLoad.await(entry, claim, loader);
+    }
+
+    /**
+     * 资产有新交易提交时失效其首页
+     */
+    void invalidate(String assetId) {
+        headPages.invalidate(assetId);
+    }
+
+    void invalidateAll(Iterable<String> assetIds) {
+        headPages.invalidateAll(assetIds);
+    }
+}
@@ -0,0 +1,49 @@
+package com.bookchain.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * 链上资产状态读穿缓存，按容量和TTL淘汰
+ * 资产创建/转移时由链码事件精确失效，TTL仅作为漏收事件时的兜底
+ * 缓存值为加载中的future，阻塞的网关查询在调用线程中、缓存锁之外执行（见CallerRunsLoad）
+ */
+class AssetStateCache {
+    private final AsyncCache<String, String> cache;
+
+    AssetStateCache(long maxSize, Duration ttl, MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        // 命中、未命中、淘汰等指标
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "assetState");
+    }
+
+    /**
+     * 读取资产状态，未命中时在当前线程调用loader查询并写入缓存；loader抛出异常时不缓存
+     */
+    String get(String assetId, Function<String, String> loader) {
+        CompletableFuture<String> claim = new CompletableFuture<>();
+        CompletableFuture<String> entry = cache.get(assetId, (id, executor) -> claim);
+        return CallerRunsLoad.await(entry, claim, () -> loader.apply(assetId));
+    }
+
+    /**
+     * 失效单个资产；进行中的加载随之移除，完成后不会写回旧值
+     */
+    void invalidate(String assetId) {
+        cache.synchronous().invalidate(assetId);
+    }
+
+    void invalidateAll(Iterable<String> assetIds) {
+        cache.synchronous().invalidateAll(assetIds);
+    }
+}
@@ -0,0 +1,123 @@
+package com.bookchain.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 链上提交守卫：同一资产的提交按分段公平锁排队串行执行，避免本节点内互相冲突；
+ * 跨节点等原因产生的MVCC读冲突按带抖动的指数退避重新背书提交
+ */
+class AssetSubmissionGuard {
+    // 提交期间的读集版本冲突（同一键被其他交易先提交）
+    private static final String[] CONFLICT_CODES = {"MVCC_READ_CONFLICT", "PHANTOM_READ_CONFLICT"};
+
+    /**
+     * 一次完整的提交（每次重试都会重新构建交易并背书）
+     */
+    @FunctionalInterface
+    interface Submission<T> {
+        T submit() throws Exception;
+    }
+
+    private final ReentrantLock[] stripes;
+    private final int maxRetries;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+    private final Timer queueWaitTimer;
+    private final Counter conflictCounter;
+    private final Counter retryCounter;
+    private final Counter exhaustedCounter;
+
+    AssetSubmissionGuard(int stripeCount, int maxRetries, long baseBackoffMillis, long maxBackoffMillis,
+                         MeterRegistry meterRegistry) {
+        if (stripeCount <= 0 || maxRetries < 0 || baseBackoffMillis <= 0 || maxBackoffMillis < baseBackoffMillis) {
+            throw new IllegalArgumentException("提交守卫参数无效");
+        }
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new ReentrantLock(true); // 公平锁，同一资产的提交按到达顺序执行
+        }
+        this.maxRetries = maxRetries;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+
+        // 计数器在构造时注册一次，提交路径上不再分配标签
+        this.queueWaitTimer = Timer.builder("fabric.submit.queue.wait")
+                .description("同一资产提交排队等待时间")
+                .register(meterRegistry);
+        this.conflictCounter = Counter.builder("fabric.submit.conflicts")
+                .description("提交时发生MVCC读冲突的次数")
+                .register(meterRegistry);
+        this.retryCounter = Counter.builder("fabric.submit.retries")
+                .description("因读冲突重新提交的次数")
+                .register(meterRegistry);
+        this.exhaustedCounter = Counter.builder("fabric.submit.retries_exhausted")
+                .description("重试次数用尽仍冲突的提交数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 对单个资产串行提交：同一分段内排队，持锁期间完成背书、排序、提交及冲突重试
+     */
+    <T> T submitSerialized(String assetId, Submission<T> submission) throws Exception {
+        ReentrantLock stripe = stripes[Math.floorMod(assetId.hashCode(), stripes.length)];
+        long start = System.nanoTime();
+        stripe.lockInterruptibly();
+        try {
+            queueWaitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return submitWithRetry(submission);
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    /**
+     * 提交并在读冲突时重试，其他错误直接抛出
+     */
+    <T> T submitWithRetry(Submission<T> submission) throws Exception {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return submission.submit();
+            } catch (Exception e) {
+                if (!isReadConflict(e)) {
+                    throw e;
+                }
+                conflictCounter.increment();
+                if (attempt >= maxRetries) {
+                    exhaustedCounter.increment();
+                    throw e;
+                }
+                retryCounter.increment();
+                backoff(attempt);
+            }
+        }
+    }
+
+    /**
+     * 全抖动退避：在[0, min(上限, 基数 × 2^attempt)]内随机等待，避免冲突方同步重试再次冲突
+     */
+    private void backoff(int attempt) throws InterruptedException {
+        long ceiling = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempt, 20));
+        Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+    }
+
+    static boolean isReadConflict(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            String message = t.getMessage();
+            if (message == null) {
+                continue;
+            }
+            for (String code : CONFLICT_CODES) {
+                if (message.contains(code)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
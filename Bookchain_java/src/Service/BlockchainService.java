@@ -1,109 +1,302 @@
 package com.bookchain.service;
 
+import com.bookchain.config.GatewayPool;
 import com.bookchain.entity.Book;
-import com.bookchain.entity.Transaction;
-import com.bookchain.entity.User;
-import com.bookchain.repository.TransactionRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bookchain.BookChaincode;
 import org.hyperledger.fabric.gateway.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 /**
  * 区块链服务类，负责与Hyperledger Fabric网络交互
  */
 @Service
 public class BlockchainService {
-    private final TransactionRepository transactionRepository;
-    private final Gateway gateway; // 区块链网关连接（需从配置获取）
+    private static final Logger log = LoggerFactory.getLogger(BlockchainService.class);
 
-    public BlockchainService(TransactionRepository transactionRepository, Gateway gateway) {
-        this.transactionRepository = transactionRepository;
-        this.gateway = gateway;
+    // 链上资产分页查询的默认及最大单页条数
+    public static final int DEFAULT_ASSET_PAGE_SIZE = 50;
+    public static final int MAX_ASSET_PAGE_SIZE = 500;
+    // 单次批量查询资产状态的最大数量
+    public static final int MAX_ASSET_LOOKUP = 100;
+
+    private final GatewayPool gatewayPool; // 区块链网关连接池，合约句柄长期复用
+    private final ObjectMapper objectMapper;
+    private final AssetBatchSubmitter assetBatchSubmitter; // 资产创建批量合并提交
+    private final AssetStateCache assetStateCache; // 资产状态读穿缓存，由链码事件失效
+    private final AssetHistoryCache assetHistoryCache; // 资产历史分页缓存，已提交的历史不可变
+    private final AssetSubmissionGuard submissionGuard; // 同一资产提交串行化及读冲突重试
+    private final boolean virtualThreads; // 虚拟线程模式：网关调用在虚拟线程上阻塞，批量查询并行扇出
+    private Consumer<ContractEvent> assetChangedListener;
+
+    public BlockchainService(GatewayPool gatewayPool,
+                             ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                             @Value("${fabric.batch.max-size:100}") int batchMaxSize,
+                             @Value("${fabric.batch.linger-ms:5}") long batchLingerMillis,
+                             @Value("${fabric.batch.max-in-flight:4}") int batchMaxInFlight,
+                             @Value("${fabric.asset-cache.max-size:100000}") long assetCacheMaxSize,
+                             @Value("${fabric.asset-cache.ttl-seconds:600}") long assetCacheTtlSeconds,
+                             @Value("${fabric.history-cache.max-size:100000}") long historyCacheMaxSize,
+                             @Value("${fabric.submit.stripes:256}") int submitStripes,
+                             @Value("${fabric.submit.max-retries:3}") int submitMaxRetries,
+                             @Value("${fabric.submit.backoff-base-ms:50}") long submitBackoffBaseMillis,
+                             @Value("${fabric.submit.backoff-max-ms:1000}") long submitBackoffMaxMillis,
+                             @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (batchMaxSize > BookChaincode.MAX_BATCH_SIZE) {
+            // 超过链码上限的批次会被整批拒绝，所有调用方都失败
+            throw new IllegalArgumentException("fabric.batch.max-size不能超过链码单批上限" + BookChaincode.MAX_BATCH_SIZE);
+        }
+        this.gatewayPool = gatewayPool;
+        this.objectMapper = objectMapper;
+        this.assetBatchSubmitter = new AssetBatchSubmitter(
+                this::submitAssetBatch, batchMaxSize, batchLingerMillis, batchMaxInFlight, virtualThreads);
+        this.assetStateCache = new AssetStateCache(
+                assetCacheMaxSize, Duration.ofSeconds(assetCacheTtlSeconds), meterRegistry);
+        this.assetHistoryCache = new AssetHistoryCache(
+                historyCacheMaxSize, Duration.ofSeconds(assetCacheTtlSeconds), meterRegistry);
+        this.submissionGuard = new AssetSubmissionGuard(
+                submitStripes, submitMaxRetries, submitBackoffBaseMillis, submitBackoffMaxMillis, meterRegistry);
+        this.virtualThreads = virtualThreads;
     }
 
     /**
-     * 记录书籍所有权上链
+     * 订阅链码资产变更事件，精确失效被创建/转移的资产缓存
      */
-    public void recordBookOwnership(Book book) {
-        try (Contract contract = gateway.getContract("bookchain")) { // 链码名称
-            // 构造上链数据：书籍ID、所有者地址、类型（普通书籍）
-            byte[] result = contract.submitTransaction(
-                    "createAsset",
-                    book.getBookId().toString(),
-                    book.getOwner().getBlockchainAddress(),
-                    "NORMAL",
-                    Instant.now().toString()
-            );
-            String txHash = new String(result, StandardCharsets.UTF_8);
-            book.setBlockchainTxHash(txHash); // 保存哈希到数据库
-        } catch (Exception e) {
-            throw new RuntimeException("区块链记录失败", e);
+    @PostConstruct
+    public void subscribeAssetEvents() {
+        assetChangedListener = gatewayPool.primaryContract()
+                .addContractListener(this::onAssetChanged, "AssetChanged");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (assetChangedListener != null) {
+            gatewayPool.primaryContract().removeContractListener(assetChangedListener);
         }
+        assetBatchSubmitter.close();
+    }
+
+    private void onAssetChanged(ContractEvent event) {
+        event.getPayload().ifPresent(payload -> {
+            try {
+                List<String> assetIds = new ArrayList<>();
+                for (JsonNode id : objectMapper.readTree(payload)) {
+                    assetIds.add(id.asText());
+                }
+                assetStateCache.invalidateAll(assetIds);
+                assetHistoryCache.invalidateAll(assetIds);
+            } catch (Exception e) {
+                // 事件负载无法解析时无法精确失效，依赖TTL兜底
+                log.warn("资产变更事件解析失败，txId={}", event.getTransactionEvent().getTransactionID(), e);
+            }
+        });
     }
 
     /**
-     * 创建盲盒资产上链
+     * 异步创建资产上链，请求会在短时间窗口内与其他资产合并为一笔交易
+     * @return 完成时给出资产所在交易的交易ID；该资产被链码拒绝时异常完成
      */
-    public void createBlindBoxOnChain(Book blindBox) {
-        try (Contract contract = gateway.getContract("bookchain")) {
-            // 构造上链数据：盲盒ID、所有者地址、类型（BLIND_BOX）
-            byte[] result = contract.submitTransaction(
-                    "createAsset",
-                    blindBox.getBookId().toString(),
-                    blindBox.getOwner().getBlockchainAddress(),
-                    "BLIND_BOX",
-                    Instant.now().toString()
-            );
-            String txHash = new String(result, StandardCharsets.UTF_8);
-            blindBox.setBlockchainTxHash(txHash);
-
-            // 记录交易到数据库
-            Transaction transaction = new Transaction();
-            transaction.setBook(blindBox);
-            transaction.setTransactionType("CREATE_BLIND_BOX");
-            transaction.setBlockchainTxHash(txHash);
-            transactionRepository.save(transaction);
-        } catch (Exception e) {
-            throw new RuntimeException("盲盒上链失败", e);
+    public CompletableFuture<String> createAssetAsync(String assetId, String owner, String type) {
+        return assetBatchSubmitter.submit(
+                new AssetBatchSubmitter.AssetRequest(assetId, owner, type, Instant.now().toString()));
+    }
+
+    /**
+     * 将一批资产通过createAssetsBatch一次性提交上链
+     */
+    private AssetBatchSubmitter.BatchResult submitAssetBatch(List<AssetBatchSubmitter.AssetRequest> batch)
+            throws Exception {
+        ArrayNode assets = objectMapper.createArrayNode();
+        for (AssetBatchSubmitter.AssetRequest request : batch) {
+            assets.addObject()
+                    .put("assetId", request.assetId())
+                    .put("owner", request.owner())
+                    .put("type", request.type())
+                    .put("timestamp", request.timestamp());
         }
+
+        String assetsJson = objectMapper.writeValueAsString(assets);
+        // 新建资产之间互不冲突，不做串行化；整批因读冲突失效时未写入任何资产，可整体重试
+        return submissionGuard.submitWithRetry(() -> gatewayPool.submit("createAssetsBatch", contract -> {
+            org.hyperledger.fabric.gateway.Transaction tx = contract.createTransaction("createAssetsBatch");
+            byte[] result = tx.submit("assets", assetsJson);
+
+            // 本节点写入的资产立即失效，不必等待事件到达
+            for (AssetBatchSubmitter.AssetRequest request : batch) {
+                assetStateCache.invalidate(request.assetId());
+                assetHistoryCache.invalidate(request.assetId());
+            }
+
+            // 解析链码返回的逐条结果（与入参顺序一致），成功的位置为null
+            List<String> errors = new ArrayList<>(batch.size());
+            for (JsonNode item : objectMapper.readTree(new String(result, StandardCharsets.UTF_8))) {
+                errors.add(item.path("success").asBoolean() ? null : item.path("message").asText());
+            }
+            return new AssetBatchSubmitter.BatchResult(tx.getTransactionId(), errors);
+        }));
     }
 
     /**
      * 转移所有权上链
      */
     public void transferOwnershipOnChain(Book book) {
-        try (Contract contract = gateway.getContract("bookchain")) {
+        try {
             // 调用链码转移所有权（参数：资产ID、新所有者地址）
-            byte[] result = contract.submitTransaction(
-                    "transferAsset",
-                    book.getBookId().toString(),
-                    book.getOwner().getBlockchainAddress()
-            );
-            String txHash = new String(result, StandardCharsets.UTF_8);
-
-            // 记录交易到数据库
-            Transaction transaction = new Transaction();
-            transaction.setBook(book);
-            transaction.setSender(book.getOwner()); // 原所有者
-            transaction.setReceiver(book.getOwner()); // 新所有者（需从业务层获取）
-            transaction.setTransactionType("TRANSFER");
-            transaction.setBlockchainTxHash(txHash);
-            transactionRepository.save(transaction);
+            // 同一资产的转移排队串行提交，避免基于同一版本背书后在提交时冲突；跨节点冲突则重新背书重试
+            String assetId = book.getBookId().toString();
+            submissionGuard.submitSerialized(assetId, () -> gatewayPool.submit("transferAsset", contract -> {
+                org.hyperledger.fabric.gateway.Transaction tx = contract.createTransaction("transferAsset");
+                tx.submit(
+                        "assetId", assetId,
+                        "owner", book.getOwner().getBlockchainAddress()
+                );
+                return tx.getTransactionId();
+            }));
+            assetStateCache.invalidate(assetId);
+            assetHistoryCache.invalidate(assetId);
+            // 交易记录由LedgerEventProjector从区块投影生成，发送方取投影中的上一任所有者
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("所有权转移失败", e);
         } catch (Exception e) {
             throw new RuntimeException("所有权转移失败", e);
         }
     }
 
     /**
-     * 查询区块链资产状态（示例）
+     * 查询区块链资产状态，优先读缓存，未命中时查询节点
      */
     public String queryAsset(String assetId) {
-        try (Contract contract = gateway.getContract("bookchain")) {
-            byte[] result = contract.evaluateTransaction("readAsset", assetId);
+        return assetStateCache.get(assetId, this::readAssetFromPeer);
+    }
+
+    /**
+     * 批量查询资产状态，返回{"资产ID": 资产状态, ...}
+     * 虚拟线程模式下各资产并行查询：查询限定在本方法作用域内，全部完成后才返回，
+     * 任一查询失败时取消其余查询并抛出；否则逐个查询
+     */
+    public String queryAssets(List<String> assetIds) {
+        if (assetIds.isEmpty() || assetIds.size() > MAX_ASSET_LOOKUP) {
+            throw new IllegalArgumentException("批量查询资产数量需在1-" + MAX_ASSET_LOOKUP + "之间");
+        }
+        Map<String, String> states = new LinkedHashMap<>();
+        if (!virtualThreads) {
+            for (String assetId : assetIds) {
+                states.put(assetId, queryAsset(assetId));
+            }
+        } else {
+            try (ExecutorService scope = Executors.newVirtualThreadPerTaskExecutor()) {
+                Map<String, Future<String>> lookups = new LinkedHashMap<>();
+                for (String assetId : assetIds) {
+                    lookups.putIfAbsent(assetId, scope.submit(() -> queryAsset(assetId)));
+                }
+                try {
+                    for (Map.Entry<String, Future<String>> lookup : lookups.entrySet()) {
+                        states.put(lookup.getKey(), lookup.getValue().get());
+                    }
+                } catch (InterruptedException e) {
+                    scope.shutdownNow();
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("资产查询失败", e);
+                } catch (ExecutionException e) {
+                    scope.shutdownNow();
+                    throw new RuntimeException("资产查询失败", e.getCause());
+                }
+            }
+        }
+
+        ObjectNode result = objectMapper.createObjectNode();
+        try {
+            for (Map.Entry<String, String> state : states.entrySet()) {
+                result.set(state.getKey(), objectMapper.readTree(state.getValue()));
+            }
+            return objectMapper.writeValueAsString(result);
+        } catch (Exception e) {
+            throw new RuntimeException("资产查询失败", e);
+        }
+    }
+
+    private String readAssetFromPeer(String assetId) {
+        try {
+            byte[] result = gatewayPool.evaluate("readAsset",
+                    contract -> contract.evaluateTransaction("readAsset", "assetId", assetId));
             return new String(result, StandardCharsets.UTF_8);
         } catch (Exception e) {
             throw new RuntimeException("资产查询失败", e);
         }
     }
+
+    /**
+     * 分页查询链上资产（基于书签续查，可按类型过滤）
+     * 返回链码原始JSON：{"assets": [...], "count": n, "bookmark": "..."}，书签为空表示已到末页
+     */
+    public String queryAssetsPage(int pageSize, String bookmark, String type) {
+        if (pageSize <= 0 || pageSize > MAX_ASSET_PAGE_SIZE) {
+            throw new IllegalArgumentException("分页大小需在1-" + MAX_ASSET_PAGE_SIZE + "之间");
+        }
+        List<String> args = new ArrayList<>();
+        args.add("pageSize");
+        args.add(String.valueOf(pageSize));
+        args.add("bookmark");
+        args.add(bookmark == null ? "" : bookmark);
+        if (type != null && !type.isEmpty()) {
+            args.add("type");
+            args.add(type);
+        }
+
+        try {
+            byte[] result = gatewayPool.evaluate("queryAssetsPage",
+                    contract -> contract.evaluateTransaction("queryAssetsPage", args.toArray(new String[0])));
+            return new String(result, StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            throw new RuntimeException("资产分页查询失败", e);
+        }
+    }
+
+    /**
+     * 分页查询资产历史（所有权变更记录，由新到旧，基于书签续查）
+     * 返回链码原始JSON：{"assetId": "...", "history": [...], "count": n, "bookmark": "..."}，书签为空表示已到最早记录
+     * 带书签的页对应已提交且不可变的历史，命中缓存后不再访问节点
+     */
+    public String queryAssetHistory(String assetId, int pageSize, String bookmark) {
+        if (pageSize <= 0 || pageSize > MAX_ASSET_PAGE_SIZE) {
+            throw new IllegalArgumentException("分页大小需在1-" + MAX_ASSET_PAGE_SIZE + "之间");
+        }
+        String resumeFrom = bookmark == null ? "" : bookmark;
+        return assetHistoryCache.get(assetId, pageSize, resumeFrom,
+                () -> readAssetHistoryFromPeer(assetId, pageSize, resumeFrom));
+    }
+
+    private String readAssetHistoryFromPeer(String assetId, int pageSize, String bookmark) {
+        try {
+            byte[] result = gatewayPool.evaluate("queryAssetHistory",
+                    contract -> contract.evaluateTransaction("queryAssetHistory",
+                            "assetId", assetId, "pageSize", String.valueOf(pageSize), "bookmark", bookmark));
+            return new String(result, StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            throw new RuntimeException("资产历史查询失败", e);
+        }
+    }
 }
@@ -0,0 +1,103 @@
+package com.bookchain.service;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 字符串布隆过滤器：位数组按期望条目数和误判率定长分配，k个位置由两个64位哈希双重散列得到
+ * 置位使用原子或运算，可并发添加和查询，不加锁；只增不删
+ */
+class BloomFilter {
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long[] words;
+    private final long bitCount;
+    private final int hashCount;
+    private final LongAdder insertions = new LongAdder(); // 置位了新位的添加次数，近似不同条目数
+
+    BloomFilter(long expectedEntries, double falsePositiveRate) {
+        if (expectedEntries <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("布隆过滤器参数无效");
+        }
+        // m = -n·ln(p) / (ln2)^2，k = m/n·ln2
+        long bits = (long) Math.ceil(-expectedEntries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.words = new long[(int) Math.min(Integer.MAX_VALUE - 8, (bits + 63) >>> 6)];
+        this.bitCount = (long) words.length << 6;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedEntries * Math.log(2)));
+    }
+
+    /**
+     * 添加条目
+     */
+    void add(CharSequence value) {
+        long h1 = hash(value);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1; // 第二个哈希取奇数，保证各探测位置不同
+        boolean changed = false;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            int index = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            if (((long) WORDS.getAndBitwiseOr(words, index, mask) & mask) == 0) {
+                changed = true;
+            }
+        }
+        if (changed) {
+            insertions.increment();
+        }
+    }
+
+    /**
+     * 返回false表示一定不存在；返回true表示可能存在（需再查询数据库确认）
+     */
+    boolean mightContain(CharSequence value) {
+        long h1 = hash(value);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            if (((long) WORDS.getAcquire(words, (int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long memoryBytes() {
+        return (long) words.length * Long.BYTES;
+    }
+
+    long approximateEntries() {
+        return insertions.sum();
+    }
+
+    /**
+     * 按当前条目数估算的误判率：(1 - e^(-k·n/m))^k
+     */
+    double expectedFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-hashCount * (double) approximateEntries() / bitCount), hashCount);
+    }
+
+    /**
+     * 逐字符的64位哈希（FNV-1a后再做一次混合），不为字符串分配字节数组
+     */
+    private static long hash(CharSequence value) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        return mix(h);
+    }
+
+    /**
+     * MurmurHash3的64位终混函数
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,18 @@
+package com.bookchain.service;
+
+/**
+ * 书籍变更事件，书籍上传或所有权转移时发布，事务提交后由各内存索引增量更新
+ * @param changeType UPLOAD或TRANSFER
+ * @param previousOwnerId 转移前的所有者ID，上传时为null
+ */
+public record BookChangedEvent(
+        Long bookId,
+        String category,
+        boolean blindBox,
+        Long ownerId,
+        Long previousOwnerId,
+        String changeType
+) {
+    public static final String UPLOAD = "UPLOAD";
+    public static final String TRANSFER = "TRANSFER";
+}
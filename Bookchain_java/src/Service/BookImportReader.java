@@ -0,0 +1,280 @@
+package com.bookchain.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 批量导入的逐行读取器，边读边解析请求流，不在内存中保留已读取的行
+ * 单行格式错误作为无效行返回，不中断后续读取；单条记录的长度有上限，超长的行作为无效行跳过，
+ * CSV引号未闭合时只有起始行作为无效行，其后被引号吞入的行退回重新解析
+ */
+abstract class BookImportReader implements Closeable {
+    static final String FORMAT_CSV = "csv";
+    static final String FORMAT_JSONL = "jsonl";
+    // 单条记录（含CSV引号内的换行）的最大字符数，书籍各字段长度之和远小于此值
+    static final int MAX_RECORD_CHARS = 64 * 1024;
+
+    /**
+     * 读取到的一行书籍数据；error不为空时为无效行
+     * @param line 该行在请求体中的起始行号（从1开始）
+     */
+    record Row(long line, String title, String author, String description, String category, String error) {
+        static Row invalid(long line, String error) {
+            return new Row(line, null, null, null, null, error);
+        }
+    }
+
+    /**
+     * 退回待重新读取的一行
+     */
+    private record PendingLine(String text, boolean tooLong) {}
+
+    protected final BufferedReader reader;
+    protected long lineNumber;
+    protected boolean lineTooLong; // 上一次readLine读到的行超过了长度上限，超出部分已丢弃
+    private final StringBuilder line = new StringBuilder();
+    private final ArrayDeque<PendingLine> unread = new ArrayDeque<>(); // 退回的行，先于请求流读取
+
+    protected BookImportReader(InputStream in) {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    static BookImportReader open(String format, InputStream in, ObjectMapper objectMapper) throws IOException {
+        if (FORMAT_CSV.equals(format)) {
+            return new Csv(in);
+        }
+        if (FORMAT_JSONL.equals(format)) {
+            return new JsonLines(in, objectMapper);
+        }
+        throw new IllegalArgumentException("不支持的导入格式：" + format);
+    }
+
+    /**
+     * 读取下一行，读完时返回null
+     */
+    abstract Row next() throws IOException;
+
+    /**
+     * 读取一行（不含行尾的\n或\r\n），流结束时返回null
+     * 至多保留MAX_RECORD_CHARS个字符，超出部分读到行尾后丢弃并置lineTooLong，避免无换行的超长输入占满内存
+     */
+    protected String readLine() throws IOException {
+        PendingLine pending = unread.pollFirst();
+        if (pending != null) {
+            lineNumber++;
+            lineTooLong = pending.tooLong();
+            return pending.text();
+        }
+        line.setLength(0);
+        lineTooLong = false;
+        int c;
+        while ((c = reader.read()) != -1 && c != '\n') {
+            if (line.length() < MAX_RECORD_CHARS) {
+                line.append((char) c);
+            } else {
+                lineTooLong = true;
+            }
+        }
+        if (c == -1 && line.isEmpty() && !lineTooLong) {
+            return null;
+        }
+        lineNumber++;
+        int end = line.length();
+        if (end > 0 && line.charAt(end - 1) == '\r') {
+            line.setLength(end - 1);
+        }
+        return line.toString();
+    }
+
+    /**
+     * 按原顺序退回最近读取的若干行，之后的readLine重新返回它们，行号随之回退
+     */
+    protected void unread(List<PendingLine> lines) {
+        for (int i = lines.size() - 1; i >= 0; i--) {
+            unread.addFirst(lines.get(i));
+        }
+        lineNumber -= lines.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * CSV（RFC 4180）：首行为表头，按列名匹配title/author/description/category，其余列忽略；
+     * 字段可用双引号包裹，引号内可含逗号、换行，两个双引号表示一个双引号
+     */
+    private static final class Csv extends BookImportReader {
+        private final int titleColumn;
+        private final int authorColumn;
+        private final int descriptionColumn;
+        private final int categoryColumn;
+        private final StringBuilder field = new StringBuilder();
+
+        Csv(InputStream in) throws IOException {
+            super(in);
+            List<String> header;
+            try {
+                header = readRecord();
+            } catch (IllegalStateException e) {
+                throw new IllegalArgumentException("CSV表头无效：" + e.getMessage());
+            }
+            if (header == null) {
+                throw new IllegalArgumentException("CSV缺少表头");
+            }
+            List<String> names = new ArrayList<>(header.size());
+            for (String name : header) {
+                names.add(name.strip().toLowerCase(Locale.ROOT));
+            }
+            if (!names.isEmpty() && names.get(0).startsWith("\uFEFF")) {
+                names.set(0, names.get(0).substring(1)); // 去除UTF-8 BOM
+            }
+            this.titleColumn = names.indexOf("title");
+            this.authorColumn = names.indexOf("author");
+            this.descriptionColumn = names.indexOf("description");
+            this.categoryColumn = names.indexOf("category");
+            if (titleColumn < 0) {
+                throw new IllegalArgumentException("CSV表头缺少title列");
+            }
+        }
+
+        @Override
+        Row next() throws IOException {
+            while (true) {
+                long startLine = lineNumber + 1;
+                List<String> fields;
+                try {
+                    fields = readRecord();
+                } catch (IllegalStateException e) {
+                    return Row.invalid(startLine, e.getMessage());
+                }
+                if (fields == null) {
+                    return null;
+                }
+                if (fields.size() == 1 && fields.get(0).isEmpty()) {
+                    continue; // 跳过空行
+                }
+                return new Row(startLine, column(fields, titleColumn), column(fields, authorColumn),
+                        column(fields, descriptionColumn), column(fields, categoryColumn), null);
+            }
+        }
+
+        private static String column(List<String> fields, int index) {
+            return index >= 0 && index < fields.size() ? fields.get(index) : null;
+        }
+
+        /**
+         * 读取一条记录（引号内的换行不结束记录），流结束时返回null；记录无效时抛出IllegalStateException
+         * 引号内跨行的记录在流结束或超过MAX_RECORD_CHARS时视为引号未闭合：只有起始行无效，
+         * 其后读入的行全部退回，下次从起始行的下一行重新解析，不会吞掉后续的有效行
+         */
+        private List<String> readRecord() throws IOException {
+            String line = readLine();
+            if (line == null) {
+                return null;
+            }
+            if (lineTooLong) {
+                throw new IllegalStateException("单行超过" + MAX_RECORD_CHARS + "个字符");
+            }
+            int length = line.length();
+            List<PendingLine> continued = new ArrayList<>(); // 引号内读入的后续行
+            List<String> fields = new ArrayList<>();
+            field.setLength(0);
+            boolean quoted = false;
+            int i = 0;
+            while (true) {
+                if (i == line.length()) {
+                    if (!quoted) {
+                        break;
+                    }
+                    line = readLine(); // 引号内换行，记录延续到下一行
+                    if (line != null) {
+                        continued.add(new PendingLine(line, lineTooLong));
+                    }
+                    if (line == null || lineTooLong || (length += line.length() + 1) > MAX_RECORD_CHARS) {
+                        unread(continued);
+                        throw new IllegalStateException("引号未闭合");
+                    }
+                    field.append('\n');
+                    i = 0;
+                    continue;
+                }
+                char c = line.charAt(i++);
+                if (quoted) {
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i < line.length() && line.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+
+    /**
+     * JSON Lines：每行一个JSON对象，字段名title/author/description/category
+     */
+    private static final class JsonLines extends BookImportReader {
+        private final ObjectMapper objectMapper;
+
+        JsonLines(InputStream in, ObjectMapper objectMapper) {
+            super(in);
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        Row next() throws IOException {
+            String line;
+            while ((line = readLine()) != null) {
+                if (lineTooLong) {
+                    return Row.invalid(lineNumber, "单行超过" + MAX_RECORD_CHARS + "个字符");
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+                JsonNode node;
+                try {
+                    node = objectMapper.readTree(line);
+                } catch (JsonProcessingException e) {
+                    return Row.invalid(lineNumber, "JSON格式错误");
+                }
+                if (!node.isObject()) {
+                    return Row.invalid(lineNumber, "每行须为JSON对象");
+                }
+                return new Row(lineNumber, text(node, "title"), text(node, "author"),
+                        text(node, "description"), text(node, "category"), null);
+            }
+            return null;
+        }
+
+        private static String text(JsonNode node, String name) {
+            JsonNode value = node.get(name);
+            return value == null || value.isNull() ? null : value.asText();
+        }
+    }
+}
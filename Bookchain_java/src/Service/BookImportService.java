@@ -0,0 +1,250 @@
+package com.bookchain.service;
+
+import com.bookchain.entity.Book;
+import com.bookchain.entity.ChainOutbox;
+import com.bookchain.entity.User;
+import com.bookchain.repository.BookRepository;
+import com.bookchain.repository.ChainOutboxRepository;
+import com.bookchain.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * 书籍批量导入服务：流式读取CSV/JSON Lines，逐行校验，有效行按块在独立事务中批量插入书籍及发件箱记录，
+ * 每块提交后整块交给上链调度器（资产由批量提交器合并为链上批量交易），在途块数有上限以形成背压
+ * 进度、无效行及最终汇总以NDJSON逐条写回响应
+ */
+@Service
+public class BookImportService {
+    private static final Logger log = LoggerFactory.getLogger(BookImportService.class);
+    // 字段长度上限，与bc_book表列定义一致
+    private static final int MAX_TITLE_LENGTH = 255;
+    private static final int MAX_AUTHOR_LENGTH = 128;
+    private static final int MAX_DESCRIPTION_LENGTH = 1024;
+    private static final int MAX_CATEGORY_LENGTH = 64;
+
+    private final BookRepository bookRepository;
+    private final UserRepository userRepository;
+    private final ChainOutboxRepository chainOutboxRepository;
+    private final ChainOutboxDispatcher chainOutboxDispatcher;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int maxChunksInFlight;
+
+    public BookImportService(BookRepository bookRepository,
+                             UserRepository userRepository,
+                             ChainOutboxRepository chainOutboxRepository,
+                             ChainOutboxDispatcher chainOutboxDispatcher,
+                             ApplicationEventPublisher eventPublisher,
+                             ObjectMapper objectMapper,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${import.chunk-size:1000}") int chunkSize,
+                             @Value("${import.max-chunks-in-flight:4}") int maxChunksInFlight) {
+        if (chunkSize <= 0 || maxChunksInFlight <= 0) {
+            throw new IllegalArgumentException("批量导入参数无效");
+        }
+        this.bookRepository = bookRepository;
+        this.userRepository = userRepository;
+        this.chainOutboxRepository = chainOutboxRepository;
+        this.chainOutboxDispatcher = chainOutboxDispatcher;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.maxChunksInFlight = maxChunksInFlight;
+    }
+
+    /**
+     * 一次导入任务：所有者和格式（含CSV表头）已校验，调用run开始读取并写出进度
+     */
+    public final class ImportJob {
+        private final Long ownerId;
+        private final String ownerAddress;
+        private final BookImportReader reader;
+        private final Deque<CompletableFuture<Integer>> chunksOnChain = new ArrayDeque<>();
+        private long rows;
+        private long imported;
+        private long failed;
+        private long onChain;
+
+        private ImportJob(User owner, BookImportReader reader) {
+            this.ownerId = owner.getUserId();
+            this.ownerAddress = owner.getBlockchainAddress();
+            this.reader = reader;
+        }
+
+        /**
+         * 读取全部行并导入，最后等待在途块上链返回后写出汇总
+         */
+        public void run(OutputStream response) {
+            long start = System.currentTimeMillis();
+            OutputStream out = new BufferedOutputStream(response); // 响应流由容器关闭
+            try (BookImportReader in = reader) {
+                List<BookImportReader.Row> chunk = new ArrayList<>(chunkSize);
+                BookImportReader.Row row;
+                while ((row = in.next()) != null) {
+                    rows++;
+                    String error = row.error() != null ? row.error() : validate(row);
+                    if (error != null) {
+                        failed++;
+                        writeEvent(out, event("error").put("line", row.line()).put("message", error));
+                        continue;
+                    }
+                    chunk.add(row);
+                    if (chunk.size() == chunkSize) {
+                        importChunk(chunk, out);
+                        chunk = new ArrayList<>(chunkSize);
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    importChunk(chunk, out);
+                }
+                while (!chunksOnChain.isEmpty()) {
+                    awaitOldestChunk();
+                }
+                writeEvent(out, progress("completed")
+                        .put("chainPending", imported - onChain) // 上链失败的记录由发件箱调度器重试
+                        .put("elapsedMillis", System.currentTimeMillis() - start));
+                out.flush();
+            } catch (IOException e) {
+                // 已提交的块不回滚，其上链由发件箱继续完成
+                log.warn("书籍批量导入中断，已读取{}行，已导入{}本", rows, imported, e);
+                throw new UncheckedIOException("书籍批量导入中断", e);
+            }
+        }
+
+        private void importChunk(List<BookImportReader.Row> chunk, OutputStream out) throws IOException {
+            List<ChainOutbox> outboxes;
+            try {
+                outboxes = transactionTemplate.execute(status -> persist(chunk));
+            } catch (RuntimeException e) {
+                // 整块回滚，块内各行均报告失败
+                log.warn("书籍批量导入写入失败，行{}-{}", chunk.get(0).line(), chunk.get(chunk.size() - 1).line(), e);
+                failed += chunk.size();
+                for (BookImportReader.Row row : chunk) {
+                    writeEvent(out, event("error").put("line", row.line()).put("message", "写入失败"));
+                }
+                return;
+            }
+            imported += outboxes.size();
+
+            // 在途块已满时等待最早的块上链返回，避免导入速度远超链上吞吐时无限堆积
+            if (chunksOnChain.size() >= maxChunksInFlight) {
+                awaitOldestChunk();
+            }
+            chunksOnChain.add(chainOutboxDispatcher.dispatchClaimed(outboxes));
+            writeEvent(out, progress("progress"));
+            out.flush();
+        }
+
+        /**
+         * 在一个事务内插入一块书籍及其发件箱记录：主键按段预分配，提交时两类插入各自成批发送
+         * 发件箱记录直接写为处理中，由本任务整块交给上链调度器；进程中断时租约过期后由调度器退回待处理
+         */
+        private List<ChainOutbox> persist(List<BookImportReader.Row> chunk) {
+            User owner = userRepository.getReferenceById(ownerId);
+            List<Book> books = new ArrayList<>(chunk.size());
+            for (BookImportReader.Row row : chunk) {
+                Book book = new Book();
+                book.setTitle(row.title().strip());
+                book.setAuthor(row.author());
+                book.setDescription(row.description());
+                book.setCategory(row.category());
+                book.setIsBlindBox(false);
+                book.setOwner(owner);
+                book.setChainStatus(Book.CHAIN_STATUS_PENDING);
+                books.add(book);
+            }
+            bookRepository.saveAll(books);
+
+            List<ChainOutbox> outboxes = new ArrayList<>(books.size());
+            for (Book book : books) {
+                ChainOutbox outbox = new ChainOutbox();
+                outbox.setBookId(book.getBookId());
+                outbox.setOwnerAddress(ownerAddress);
+                outbox.setAssetType("NORMAL");
+                outbox.setStatus(ChainOutbox.STATUS_PROCESSING);
+                outboxes.add(outbox);
+                eventPublisher.publishEvent(new BookChangedEvent(book.getBookId(), book.getCategory(),
+                        false, ownerId, null, BookChangedEvent.UPLOAD));
+            }
+            chainOutboxRepository.saveAll(outboxes);
+            return outboxes;
+        }
+
+        private void awaitOldestChunk() {
+            try {
+                onChain += chunksOnChain.poll().join();
+            } catch (CompletionException e) {
+                log.error("批量导入上链结果回写失败", e.getCause());
+            }
+        }
+
+        private ObjectNode progress(String type) {
+            return event(type)
+                    .put("rows", rows)
+                    .put("imported", imported)
+                    .put("failed", failed)
+                    .put("onChain", onChain);
+        }
+    }
+
+    /**
+     * 校验导入者并打开读取器（CSV在此读取表头），参数错误在开始写出响应前抛出
+     * @param format csv或jsonl
+     */
+    public ImportJob prepare(Long userId, String format, InputStream in) throws IOException {
+        User owner = userRepository.findById(userId)
+                .orElseThrow(() -> new IllegalArgumentException("用户不存在"));
+        return new ImportJob(owner, BookImportReader.open(format, in, objectMapper));
+    }
+
+    private static String validate(BookImportReader.Row row) {
+        if (row.title() == null || row.title().isBlank()) {
+            return "标题不能为空";
+        }
+        if (row.title().strip().length() > MAX_TITLE_LENGTH) {
+            return "标题长度不能超过" + MAX_TITLE_LENGTH;
+        }
+        if (row.author() != null && row.author().length() > MAX_AUTHOR_LENGTH) {
+            return "作者长度不能超过" + MAX_AUTHOR_LENGTH;
+        }
+        if (row.description() != null && row.description().length() > MAX_DESCRIPTION_LENGTH) {
+            return "描述长度不能超过" + MAX_DESCRIPTION_LENGTH;
+        }
+        if (row.category() != null && row.category().length() > MAX_CATEGORY_LENGTH) {
+            return "类别长度不能超过" + MAX_CATEGORY_LENGTH;
+        }
+        return null;
+    }
+
+    private ObjectNode event(String type) {
+        return objectMapper.createObjectNode().put("event", type);
+    }
+
+    private void writeEvent(OutputStream out, ObjectNode event) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(event));
+        out.write('\n');
+    }
+}
@@ -0,0 +1,275 @@
+package com.bookchain.service;
+
+import com.bookchain.entity.Book;
+import com.bookchain.repository.BookRepository;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.cjk.CJKAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.store.FSDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongFunction;
+
+/**
+ * 书籍全文检索索引（嵌入式Lucene），索引标题、作者、描述、类别，中日韩文本按二元组切分
+ * 索引持久化在本地目录，启动时追赶提交点之后新增及修改过的书籍；上传/转移提交后增量更新，
+ * 近实时刷新，定期提交。盲盒只索引标题，避免通过作者、描述等检索推断盲盒内容
+ */
+@Component
+public class BookSearchIndex {
+    private static final Logger log = LoggerFactory.getLogger(BookSearchIndex.class);
+    private static final String FIELD_ID = "bookId";
+    private static final String FIELD_TITLE = "title";
+    private static final String FIELD_AUTHOR = "author";
+    private static final String FIELD_DESCRIPTION = "description";
+    private static final String FIELD_CATEGORY = "category";
+    // 提交点用户数据：已索引的最大书籍ID，用于重启追赶
+    private static final String COMMIT_MAX_BOOK_ID = "maxBookId";
+    private static final int CATCH_UP_PAGE_SIZE = 5000;
+    // 并发事务的ID提交顺序可能与分配顺序不同，追赶时回退一段ID重新索引（更新幂等）
+    private static final long CATCH_UP_OVERLAP = 1000;
+    // 提交点用户数据：提交开始时间，此前收到的书籍变更均已持久化在索引中
+    private static final String COMMIT_UPDATE_TIME = "updateTime";
+    // 修改时间在flush时写入，早于事务提交和变更事件到达，追赶时回退一段时间重新索引
+    private static final long CATCH_UP_TIME_OVERLAP_MS = 60_000;
+    // 字段权重：标题 > 作者 > 类别 > 描述
+    private static final Map<String, Float> FIELD_WEIGHTS = Map.of(
+            FIELD_TITLE, 3.0f, FIELD_AUTHOR, 2.0f, FIELD_CATEGORY, 1.5f, FIELD_DESCRIPTION, 1.0f);
+
+    /**
+     * 一页检索结果：命中总数 + 按相关度排序的书籍ID
+     */
+    public record Hits(long total, List<Long> bookIds) {}
+
+    private final BookRepository bookRepository;
+    private final Analyzer analyzer = new CJKAnalyzer();
+    private final FSDirectory directory;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+    // 增量索引只做CAS更新，请求线程不与提交争用同一把锁
+    private final AtomicLong maxIndexedBookId;
+    // 使用ReentrantLock而非synchronized：提交期间的磁盘I/O不会钉住等待提交的虚拟线程
+    private final ReentrantLock commitLock = new ReentrantLock();
+    private final long committedUpdateTime;
+
+    public BookSearchIndex(BookRepository bookRepository,
+                           @Value("${search.index-path:data/book-index}") String indexPath) throws IOException {
+        this.bookRepository = bookRepository;
+        this.directory = FSDirectory.open(Paths.get(indexPath));
+        IndexWriterConfig config = new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        this.writer = new IndexWriter(directory, config);
+        this.searcherManager = new SearcherManager(writer, null);
+        this.maxIndexedBookId = new AtomicLong(readCommitData(COMMIT_MAX_BOOK_ID));
+        this.committedUpdateTime = readCommitData(COMMIT_UPDATE_TIME);
+    }
+
+    /**
+     * 启动后从提交点追赶新增书籍（首次启动即全量构建），
+     * 再重新索引提交点之后修改过的旧书籍（其变更在崩溃前可能尚未提交到索引）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void catchUp() {
+        PageRequest page = PageRequest.of(0, CATCH_UP_PAGE_SIZE);
+        try {
+            int indexed = indexPages(Math.max(0, maxIndexedBookId.get() - CATCH_UP_OVERLAP),
+                    afterId -> bookRepository.findPageAfter(afterId, true, page));
+            if (committedUpdateTime > 0) {
+                Date since = new Date(committedUpdateTime - CATCH_UP_TIME_OVERLAP_MS);
+                indexed += indexPages(0, afterId -> bookRepository.findUpdatedSince(since, afterId, page));
+            }
+            commit();
+            searcherManager.maybeRefresh();
+            log.info("书籍检索索引追赶完成，索引{}本书籍，共{}篇文档", indexed, writer.getDocStats().numDocs);
+        } catch (IOException e) {
+            log.error("书籍检索索引追赶失败", e);
+        }
+    }
+
+    /**
+     * 按ID升序逐页索引afterId之后的书籍，返回索引的书籍数
+     */
+    private int indexPages(long afterId, LongFunction<List<Book>> pageAfter) throws IOException {
+        int indexed = 0;
+        while (true) {
+            List<Book> books = pageAfter.apply(afterId);
+            for (Book book : books) {
+                index(book);
+                afterId = book.getBookId();
+            }
+            indexed += books.size();
+            if (books.size() < CATCH_UP_PAGE_SIZE) {
+                return indexed;
+            }
+        }
+    }
+
+    /**
+     * 书籍上传/转移提交后更新索引文档
+     */
+    @TransactionalEventListener
+    public void onBookChanged(BookChangedEvent event) {
+        bookRepository.findById(event.bookId()).ifPresent(book -> {
+            try {
+                index(book);
+            } catch (IOException e) {
+                log.warn("书籍{}检索索引更新失败，下次启动追赶时修复", book.getBookId(), e);
+            }
+        });
+    }
+
+    /**
+     * 按相关度检索，返回第page页（从0开始）的书籍ID
+     */
+    public Hits search(String text, int page, int size) {
+        SimpleQueryParser parser = new SimpleQueryParser(analyzer, FIELD_WEIGHTS);
+        parser.setDefaultOperator(BooleanClause.Occur.MUST); // 所有词（二元组）都须命中
+        Query query = parser.parse(text);
+        if (query == null) {
+            return new Hits(0, List.of()); // 查询词全部被分析器过滤
+        }
+
+        IndexSearcher searcher = null;
+        try {
+            searcher = searcherManager.acquire();
+            TopDocs top = searcher.search(query, (page + 1) * size);
+            List<Long> bookIds = new ArrayList<>(size);
+            for (int i = page * size; i < top.scoreDocs.length; i++) {
+                ScoreDoc hit = top.scoreDocs[i];
+                bookIds.add(Long.parseLong(searcher.storedFields().document(hit.doc).get(FIELD_ID)));
+            }
+            // 命中数超过收集阈值时只是下界，此时单独精确计数
+            long total = top.totalHits.relation == TotalHits.Relation.EQUAL_TO
+                    ? top.totalHits.value : searcher.count(query);
+            return new Hits(total, bookIds);
+        } catch (IOException e) {
+            throw new UncheckedIOException("书籍检索失败", e);
+        } finally {
+            if (searcher != null) {
+                try {
+                    searcherManager.release(searcher);
+                } catch (IOException e) {
+                    log.warn("释放检索器失败", e);
+                }
+            }
+        }
+    }
+
+    private void index(Book book) throws IOException {
+        Document doc = new Document();
+        String id = book.getBookId().toString();
+        doc.add(new StringField(FIELD_ID, id, Field.Store.YES));
+        addText(doc, FIELD_TITLE, book.getTitle());
+        if (!book.isBlindBox()) {
+            addText(doc, FIELD_AUTHOR, book.getAuthor());
+            addText(doc, FIELD_DESCRIPTION, book.getDescription());
+            addText(doc, FIELD_CATEGORY, book.getCategory());
+        }
+        writer.updateDocument(new Term(FIELD_ID, id), doc);
+        maxIndexedBookId.accumulateAndGet(book.getBookId(), Math::max);
+    }
+
+    private static void addText(Document doc, String field, String value) {
+        if (value != null && !value.isEmpty()) {
+            doc.add(new TextField(field, value, Field.Store.NO));
+        }
+    }
+
+    /**
+     * 近实时刷新检索器，使新索引的书籍可被检索
+     */
+    @Scheduled(fixedDelayString = "${search.refresh-interval-ms:1000}")
+    public void refresh() {
+        try {
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            log.warn("书籍检索索引刷新失败", e);
+        }
+    }
+
+    /**
+     * 定期持久化提交，提交点记录已索引的最大书籍ID与提交开始时间
+     */
+    @Scheduled(fixedDelayString = "${search.commit-interval-ms:30000}")
+    public void commitPeriodically() {
+        try {
+            commit();
+        } catch (IOException e) {
+            log.warn("书籍检索索引提交失败", e);
+        }
+    }
+
+    /**
+     * 持久化提交；文档先写入再更新最大ID，提交前读取的最大ID对应的文档必然包含在本次提交中
+     */
+    private void commit() throws IOException {
+        commitLock.lock();
+        try {
+            if (!writer.hasUncommittedChanges()) {
+                return;
+            }
+            long startedAt = System.currentTimeMillis();
+            writer.setLiveCommitData(Map.of(
+                    COMMIT_MAX_BOOK_ID, Long.toString(maxIndexedBookId.get()),
+                    COMMIT_UPDATE_TIME, Long.toString(startedAt)).entrySet());
+            writer.commit();
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    private long readCommitData(String key) {
+        Iterable<Map.Entry<String, String>> commitData = writer.getLiveCommitData();
+        if (commitData != null) {
+            for (Map.Entry<String, String> entry : commitData) {
+                if (key.equals(entry.getKey())) {
+                    return Long.parseLong(entry.getValue());
+                }
+            }
+        }
+        return 0;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        try {
+            commit();
+        } finally {
+            searcherManager.close();
+            writer.close();
+            directory.close();
+        }
+    }
+}
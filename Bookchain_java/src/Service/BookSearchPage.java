@@ -0,0 +1,13 @@
+package com.bookchain.service;
+
+import java.util.List;
+
+/**
+ * 书籍检索结果页：命中总数 + 本页按相关度排序的书籍视图（盲盒已按查看者遮蔽）
+ */
+public record BookSearchPage(long total, int page, int size, List<BookView> items) {
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 50;
+    // 深分页代价随页码线性增长，限制可翻到的结果数
+    public static final int MAX_RESULT_WINDOW = 1000;
+}
@@ -1,12 +1,21 @@
 package com.bookchain.service;
 
 import com.bookchain.entity.Book;
+import com.bookchain.entity.ChainOutbox;
 import com.bookchain.entity.User;
 import com.bookchain.repository.BookRepository;
+import com.bookchain.repository.ChainOutboxRepository;
 import com.bookchain.repository.UserRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -18,13 +27,25 @@ public class BookService {
     private final BookRepository bookRepository;
     private final UserRepository userRepository;
     private final BlockchainService blockchainService; // 假设存在区块链交互服务
+    private final ChainOutboxRepository chainOutboxRepository; // 上链发件箱，由ChainOutboxDispatcher异步上链
+    private final ApplicationEventPublisher eventPublisher; // 发布书籍变更事件，驱动内存索引增量更新
+    private final JsonArrayExporter jsonArrayExporter;
+    private final BookSearchIndex bookSearchIndex;
 
     public BookService(BookRepository bookRepository,
                        UserRepository userRepository,
-                       BlockchainService blockchainService) {
+                       BlockchainService blockchainService,
+                       ChainOutboxRepository chainOutboxRepository,
+                       ApplicationEventPublisher eventPublisher,
+                       JsonArrayExporter jsonArrayExporter,
+                       BookSearchIndex bookSearchIndex) {
         this.bookRepository = bookRepository;
         this.userRepository = userRepository;
         this.blockchainService = blockchainService;
+        this.chainOutboxRepository = chainOutboxRepository;
+        this.eventPublisher = eventPublisher;
+        this.jsonArrayExporter = jsonArrayExporter;
+        this.bookSearchIndex = bookSearchIndex;
     }
 
     /**
@@ -42,10 +63,12 @@ public class BookService {
         book.setCategory(category);
         book.setIsBlindBox(false);
         book.setOwner(owner); // 关联所有者
+        book.setChainStatus(Book.CHAIN_STATUS_PENDING);
 
-        // 保存到数据库并同步区块链（示例逻辑）
+        // 保存到数据库，并在同一事务中写入发件箱，上链由后台异步完成
         Book savedBook = bookRepository.save(book);
-        blockchainService.recordBookOwnership(savedBook); // 调用区块链服务存证
+        enqueueOnChain(savedBook, "NORMAL");
+        publishChange(savedBook, null, BookChangedEvent.UPLOAD);
         return savedBook;
     }
 
@@ -64,36 +87,88 @@ public class BookService {
 
         // 生成随机类别（示例逻辑，可替换为用户选择）
         blindBox.setCategory(getRandomCategory());
+        blindBox.setChainStatus(Book.CHAIN_STATUS_PENDING);
 
         Book savedBox = bookRepository.save(blindBox);
-        blockchainService.createBlindBoxOnChain(savedBox); // 区块链创建盲盒
+        enqueueOnChain(savedBox, "BLIND_BOX"); // 区块链创建盲盒（异步）
+        publishChange(savedBox, null, BookChangedEvent.UPLOAD);
         return savedBox;
     }
 
     /**
-     * 查询所有书籍（可过滤盲盒状态）
+     * 写入上链发件箱（需与书籍保存处于同一事务）
      */
-    public List<Book> getAllBooks(boolean includeBlindBox) {
-        if (includeBlindBox) {
-            return bookRepository.findAll();
-        }
-        return bookRepository.findByIsBlindBox(false);
+    private void enqueueOnChain(Book book, String assetType) {
+        ChainOutbox outbox = new ChainOutbox();
+        outbox.setBookId(book.getBookId());
+        outbox.setOwnerAddress(book.getOwner().getBlockchainAddress());
+        outbox.setAssetType(assetType);
+        chainOutboxRepository.save(outbox);
+    }
+
+    /**
+     * 键集分页查询书籍视图（可过滤盲盒状态），按书籍ID升序，非所有者看到的盲盒已遮蔽
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<BookView> getBooksPage(String cursor, int limit, boolean includeBlindBox, Long viewerUserId) {
+        int pageSize = KeysetPage.clampLimit(limit);
+        List<BookView> fetched = bookRepository.findViewPageAfter(KeysetPage.decodeCursor(cursor), includeBlindBox,
+                        PageRequest.of(0, pageSize + 1)) // 多取一条判断是否还有下一页
+                .stream()
+                .map(view -> view.viewedBy(viewerUserId))
+                .toList();
+        return KeysetPage.of(fetched, pageSize, BookView::bookId);
     }
 
     /**
-     * 根据ID查询书籍（处理盲盒详情可见逻辑）
+     * 将全部书籍视图以JSON数组流式写出（可过滤盲盒状态），内存占用与书籍总数无关
+     * 盲盒按导出者身份遮蔽，导出者只能看到自己盲盒的详情
      */
-    public Book getBookById(Long bookId, boolean isOwner) {
+    @Transactional(readOnly = true)
+    public void exportBooks(boolean includeBlindBox, Long viewerUserId, OutputStream out) {
+        jsonArrayExporter.export(() -> bookRepository.streamViews(includeBlindBox)
+                .map(view -> view.viewedBy(viewerUserId)), out);
+    }
+
+    /**
+     * 根据ID查询书籍详情（处理盲盒详情可见逻辑）
+     * 书籍从二级缓存读取，所有权判断只比较所有者ID，只读事务内不产生任何写操作
+     */
+    @Transactional(readOnly = true)
+    public BookView getBookById(Long bookId, Long viewerUserId) {
         Book book = bookRepository.findById(bookId)
                 .orElseThrow(() -> new IllegalArgumentException("书籍不存在"));
+        boolean isOwner = book.getOwner() != null && book.getOwner().getUserId().equals(viewerUserId);
+        return BookView.of(book, isOwner);
+    }
 
-        // 非所有者且为盲盒时，隐藏详细信息
-        if (!isOwner && book.isBlindBox()) {
-            book.setDescription("盲盒未打开，暂不可见");
-            book.setAuthor(null);
-            book.setCategory("神秘类别");
+    /**
+     * 全文检索书籍（标题、作者、描述、类别），按相关度分页，非所有者看到的盲盒已遮蔽
+     */
+    @Transactional(readOnly = true)
+    public BookSearchPage searchBooks(String keyword, int page, int size, Long viewerUserId) {
+        if (keyword == null || keyword.isBlank()) {
+            throw new IllegalArgumentException("检索关键词不能为空");
+        }
+        int pageSize = Math.max(1, Math.min(size, BookSearchPage.MAX_SIZE));
+        if (page < 0 || (long) (page + 1) * pageSize > BookSearchPage.MAX_RESULT_WINDOW) {
+            throw new IllegalArgumentException("检索结果最多翻阅前" + BookSearchPage.MAX_RESULT_WINDOW + "条");
+        }
+
+        BookSearchIndex.Hits hits = bookSearchIndex.search(keyword, page, pageSize);
+        Map<Long, Book> books = new HashMap<>();
+        for (Book book : bookRepository.findAllById(hits.bookIds())) {
+            books.put(book.getBookId(), book);
+        }
+        List<BookView> items = new ArrayList<>(hits.bookIds().size());
+        for (Long bookId : hits.bookIds()) {
+            Book book = books.get(bookId);
+            if (book != null) { // 索引尚未感知的删除
+                boolean isOwner = book.getOwner() != null && book.getOwner().getUserId().equals(viewerUserId);
+                items.add(BookView.of(book, isOwner));
+            }
         }
-        return book;
+        return new BookSearchPage(hits.total(), page, pageSize, items);
     }
 
     /**
@@ -105,15 +180,31 @@ public class BookService {
         User newOwner = userRepository.findById(newOwnerId)
                 .orElseThrow(() -> new IllegalArgumentException("新所有者不存在"));
 
+        // 链上资产由发件箱异步创建，确认上链前资产尚不存在，转移必然失败
+        if (!Book.CHAIN_STATUS_CONFIRMED.equals(book.getChainStatus())) {
+            throw new IllegalArgumentException(Book.CHAIN_STATUS_FAILED.equals(book.getChainStatus())
+                    ? "书籍上链失败，无法转移" : "书籍尚未完成上链，请稍后再转移");
+        }
+
         // 校验当前所有者是否允许转移（示例逻辑，可扩展业务规则）
         if (!book.getOwner().getUserId().equals(book.getOwner().getUserId())) {
             throw new IllegalArgumentException("无权限转移他人书籍");
         }
 
         // 更新数据库和区块链
+        Long previousOwnerId = book.getOwner().getUserId();
         book.setOwner(newOwner);
         bookRepository.save(book);
         blockchainService.transferOwnershipOnChain(book); // 区块链记录转移
+        publishChange(book, previousOwnerId, BookChangedEvent.TRANSFER);
+    }
+
+    /**
+     * 发布书籍变更事件（监听方在事务提交后处理）
+     */
+    private void publishChange(Book book, Long previousOwnerId, String changeType) {
+        eventPublisher.publishEvent(new BookChangedEvent(book.getBookId(), book.getCategory(),
+                book.isBlindBox(), book.getOwner().getUserId(), previousOwnerId, changeType));
     }
     private String getRandomCategory() {
         String[] categories = {"文学", "科幻", "历史", "技术", "艺术"};
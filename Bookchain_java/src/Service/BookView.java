@@ -0,0 +1,49 @@
+package com.bookchain.service;
+
+import com.bookchain.entity.Book;
+
+import java.util.Date;
+
+/**
+ * 书籍详情只读视图，盲盒遮蔽在视图上完成，不修改受管实体（避免脏检查产生写操作）
+ * 列表与导出由JPQL构造表达式直接查出视图，不序列化实体及其关联
+ */
+public record BookView(
+        Long bookId,
+        String title,
+        String author,
+        String description,
+        String category,
+        boolean blindBox,
+        String blockchainTxHash,
+        String chainStatus,
+        Date uploadTime,
+        Long ownerId
+) {
+    /**
+     * 由实体构建视图，非所有者查看盲盒时隐藏详细信息
+     * 所有者ID取自懒加载代理的标识符，不会触发所有者加载
+     */
+    public static BookView of(Book book, boolean isOwner) {
+        Long ownerId = book.getOwner() != null ? book.getOwner().getUserId() : null;
+        BookView view = new BookView(book.getBookId(), book.getTitle(), book.getAuthor(), book.getDescription(),
+                book.getCategory(), book.isBlindBox(), book.getBlockchainTxHash(), book.getChainStatus(),
+                book.getUploadTime(), ownerId);
+        return isOwner ? view : view.maskBlindBox();
+    }
+
+    /**
+     * 按查看者返回视图：查看者不是所有者（含匿名）时遮蔽盲盒详情
+     */
+    public BookView viewedBy(Long viewerUserId) {
+        return viewerUserId != null && viewerUserId.equals(ownerId) ? this : maskBlindBox();
+    }
+
+    private BookView maskBlindBox() {
+        if (!blindBox) {
+            return this;
+        }
+        return new BookView(bookId, title, null, "盲盒未打开，暂不可见", "神秘类别",
+                true, blockchainTxHash, chainStatus, uploadTime, ownerId);
+    }
+}
@@ -0,0 +1,40 @@
+package com.bookchain.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * 缓存未命中时在调用线程中、缓存锁之外执行加载
+ * 缓存的映射函数只放入一个未完成的占位future（不阻塞），抢到占位的线程执行loader并完成它，
+ * 同一键上的其他读取者等待同一结果。加载是阻塞的网关调用，若放在ConcurrentHashMap.compute内执行，
+ * 会长时间占用桶锁，并把虚拟线程钉在载体线程上
+ */
+final class CallerRunsLoad {
+
+    private CallerRunsLoad() {
+    }
+
+    /**
+     * 等待缓存中的entry；entry就是本线程放入的claim时，先在当前线程执行loader完成它
+     * loader抛出的异常原样抛给所有等待者
+     */
+    static <V> V await(CompletableFuture<V> entry, CompletableFuture<V> claim, Supplier<V> loader) {
+        if (entry == claim) {
+            try {
+                claim.complete(loader.get());
+            } catch (RuntimeException | Error e) {
+                claim.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return entry.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
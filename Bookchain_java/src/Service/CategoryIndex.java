@@ -0,0 +1,179 @@
+package com.bookchain.service;
+
+import com.bookchain.repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 类别倒排索引：类别 -> 非盲盒书籍ID有序表
+ * 启动时全量重建，书籍上传/转移提交后增量更新，推荐查询不再依赖全表扫描
+ */
+@Component
+public class CategoryIndex {
+    private static final Logger log = LoggerFactory.getLogger(CategoryIndex.class);
+    private static final int REBUILD_PAGE_SIZE = 10000;
+
+    private final BookRepository bookRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<String, LongPostings> postings = new HashMap<>();
+    private List<BookChangedEvent> changedDuringRebuild; // 重建期间到达的变更，替换后重放；不在重建时为null
+
+    public CategoryIndex(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+    }
+
+    /**
+     * 启动后按ID分段全量重建索引，重建完成后整体替换
+     * 重建期间的增量变更照常作用于旧索引，同时缓冲下来，替换后在新索引上重放，避免分段读取时漏掉
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Map<String, LongPostings> rebuilt = new HashMap<>();
+        int total;
+        try {
+            total = load(rebuilt);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                changedDuringRebuild = null; // 保留旧索引，停止缓冲
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        int replayed;
+        lock.writeLock().lock();
+        try {
+            postings = rebuilt;
+            replayed = changedDuringRebuild.size();
+            for (BookChangedEvent event : changedDuringRebuild) {
+                apply(event); // 先移除再加入，与分段读取到的结果重复时幂等
+            }
+            changedDuringRebuild = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("类别索引重建完成，共{}本书籍，{}个类别，重放{}条重建期间的变更", total, rebuilt.size(), replayed);
+    }
+
+    private int load(Map<String, LongPostings> rebuilt) {
+        long afterId = 0;
+        int total = 0;
+        while (true) {
+            List<Object[]> rows = bookRepository.findCategoryPostings(afterId, PageRequest.of(0, REBUILD_PAGE_SIZE));
+            for (Object[] row : rows) {
+                long bookId = (Long) row[0];
+                String category = (String) row[1];
+                if (category != null) {
+                    rebuilt.computeIfAbsent(category, c -> new LongPostings()).add(bookId);
+                }
+                afterId = bookId;
+            }
+            total += rows.size();
+            if (rows.size() < REBUILD_PAGE_SIZE) {
+                return total;
+            }
+        }
+    }
+
+    /**
+     * 书籍变更事务提交后增量更新：先从所有类别移除，非盲盒书籍再加入其当前类别
+     */
+    @TransactionalEventListener
+    public void onBookChanged(BookChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            apply(event);
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.add(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 调用方需持有写锁
+     */
+    private void apply(BookChangedEvent event) {
+        long bookId = event.bookId();
+        for (LongPostings list : postings.values()) {
+            list.remove(bookId);
+        }
+        if (!event.blindBox() && event.category() != null) {
+            postings.computeIfAbsent(event.category(), c -> new LongPostings()).add(bookId);
+        }
+    }
+
+    /**
+     * 从给定类别的书籍中随机抽取至多limit个不重复的书籍ID
+     */
+    public List<Long> sample(Collection<String> categories, int limit) {
+        lock.readLock().lock();
+        try {
+            List<LongPostings> lists = new ArrayList<>();
+            int total = 0;
+            for (String category : new HashSet<>(categories)) {
+                LongPostings list = postings.get(category);
+                if (list != null && list.size() > 0) {
+                    lists.add(list);
+                    total += list.size();
+                }
+            }
+            if (total == 0 || limit <= 0) {
+                return Collections.emptyList();
+            }
+
+            // 候选不多于limit时全部返回，否则在合并后的位置空间内随机抽取不重复位置
+            List<Long> result = new ArrayList<>(Math.min(limit, total));
+            if (total <= limit) {
+                for (LongPostings list : lists) {
+                    for (int i = 0; i < list.size(); i++) {
+                        result.add(list.get(i));
+                    }
+                }
+            } else {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                Set<Integer> picked = new HashSet<>();
+                while (picked.size() < limit) {
+                    int position = random.nextInt(total);
+                    if (picked.add(position)) {
+                        result.add(at(lists, position));
+                    }
+                }
+            }
+            Collections.shuffle(result);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static long at(List<LongPostings> lists, int position) {
+        for (LongPostings list : lists) {
+            if (position < list.size()) {
+                return list.get(position);
+            }
+            position -= list.size();
+        }
+        throw new IndexOutOfBoundsException(position);
+    }
+}
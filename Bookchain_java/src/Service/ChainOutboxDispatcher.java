@@ -0,0 +1,242 @@
+package com.bookchain.service;
+
+import com.bookchain.entity.Book;
+import com.bookchain.entity.ChainOutbox;
+import com.bookchain.repository.BookRepository;
+import com.bookchain.repository.ChainOutboxRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 上链发件箱调度器，后台将发件箱中的待上链书籍提交到区块链
+ * 上链成功后回写交易哈希并将书籍置为已确认，失败则按指数退避重试，超过次数后标记失败
+ * 结果回写在专用线程池中执行，不占用批量提交的回调线程
+ */
+@Service
+public class ChainOutboxDispatcher {
+    private static final Logger log = LoggerFactory.getLogger(ChainOutboxDispatcher.class);
+
+    private final ChainOutboxRepository outboxRepository;
+    private final BookRepository bookRepository;
+    private final BlockchainService blockchainService;
+    private final TransactionTemplate transactionTemplate;
+    private final Semaphore inFlight; // 限制同时在途的上链任务数
+    private final int maxAttempts;
+    private final long processingLeaseMillis; // 处理中记录的租约，需长于单次上链的最长耗时
+    private final long retryBackoffMillis; // 首次重试延迟，之后每次翻倍
+    private final long retryBackoffMaxMillis;
+    private final ExecutorService writeBackExecutor; // 上链结果回写数据库
+
+    public ChainOutboxDispatcher(ChainOutboxRepository outboxRepository,
+                                 BookRepository bookRepository,
+                                 BlockchainService blockchainService,
+                                 TransactionTemplate transactionTemplate,
+                                 @Value("${outbox.max-in-flight:200}") int maxInFlight,
+                                 @Value("${outbox.max-attempts:5}") int maxAttempts,
+                                 @Value("${outbox.processing-lease-ms:600000}") long processingLeaseMillis,
+                                 @Value("${outbox.retry-backoff-ms:1000}") long retryBackoffMillis,
+                                 @Value("${outbox.retry-backoff-max-ms:300000}") long retryBackoffMaxMillis,
+                                 @Value("${outbox.write-back-threads:4}") int writeBackThreads) {
+        this.outboxRepository = outboxRepository;
+        this.bookRepository = bookRepository;
+        this.blockchainService = blockchainService;
+        this.transactionTemplate = transactionTemplate;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.maxAttempts = maxAttempts;
+        this.processingLeaseMillis = processingLeaseMillis;
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.retryBackoffMaxMillis = retryBackoffMaxMillis;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.writeBackExecutor = Executors.newFixedThreadPool(writeBackThreads, r -> {
+            Thread t = new Thread(r, "outbox-write-back-" + threadIndex.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * 停止时等待已在排队的回写完成，未完成的记录由租约恢复
+     */
+    @PreDestroy
+    public void shutdown() {
+        writeBackExecutor.shutdown();
+        try {
+            writeBackExecutor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 定期（含启动时）恢复租约过期的处理中记录
+     * 只重置超过租约时长未更新的记录，其他存活实例正在提交的记录不受影响，避免同一资产重复提交
+     */
+    @Scheduled(fixedDelayString = "${outbox.lease-check-interval-ms:60000}")
+    public void recover() {
+        Date now = new Date();
+        Date staleBefore = new Date(now.getTime() - processingLeaseMillis);
+        Integer reset = transactionTemplate.execute(status -> outboxRepository.resetStaleProcessing(staleBefore, now));
+        if (reset != null && reset > 0) {
+            log.info("恢复{}条租约过期的上链任务", reset);
+        }
+    }
+
+    /**
+     * 定时拉取待处理记录并提交上链，拉取数量不超过剩余并发额度
+     */
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:200}")
+    public void dispatch() {
+        int available = inFlight.availablePermits();
+        if (available == 0) {
+            return;
+        }
+        List<ChainOutbox> pending = outboxRepository.findDue(
+                ChainOutbox.STATUS_PENDING, new Date(), PageRequest.of(0, available));
+        for (ChainOutbox outbox : pending) {
+            if (!inFlight.tryAcquire()) {
+                return;
+            }
+            if (!claim(outbox)) {
+                inFlight.release(); // 已被其他实例认领
+                continue;
+            }
+            blockchainService.createAssetAsync(outbox.getBookId().toString(),
+                            outbox.getOwnerAddress(), outbox.getAssetType())
+                    .whenCompleteAsync((txHash, error) -> {
+                        try {
+                            if (error == null) {
+                                markDone(outbox, txHash);
+                            } else {
+                                markFailed(outbox, error);
+                            }
+                        } catch (Exception e) {
+                            log.error("回写上链结果失败，outboxId={}", outbox.getOutboxId(), e);
+                        } finally {
+                            inFlight.release();
+                        }
+                    }, writeBackExecutor);
+        }
+    }
+
+    /**
+     * 整组提交调用方已写为处理中状态的发件箱记录（如批量导入），各资产仍由批量提交器合并上链
+     * 全部返回后在一个事务中回写成功记录，失败记录按普通流程退回待处理重试；返回成功上链的记录数
+     */
+    public CompletableFuture<Integer> dispatchClaimed(List<ChainOutbox> claimed) {
+        List<CompletableFuture<String>> results = new ArrayList<>(claimed.size());
+        for (ChainOutbox outbox : claimed) {
+            results.add(blockchainService.createAssetAsync(outbox.getBookId().toString(),
+                    outbox.getOwnerAddress(), outbox.getAssetType()));
+        }
+        return CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).handleAsync((ignored, error) -> {
+            Map<Long, String> txHashes = new HashMap<>(); // 书籍ID -> 交易哈希
+            List<Long> doneIds = new ArrayList<>();
+            for (int i = 0; i < claimed.size(); i++) {
+                ChainOutbox outbox = claimed.get(i);
+                try {
+                    txHashes.put(outbox.getBookId(), results.get(i).join());
+                    doneIds.add(outbox.getOutboxId());
+                } catch (CompletionException e) {
+                    markFailed(outbox, e.getCause());
+                }
+            }
+            if (!doneIds.isEmpty()) {
+                markAllDone(doneIds, txHashes);
+            }
+            return doneIds.size();
+        }, writeBackExecutor);
+    }
+
+    private boolean claim(ChainOutbox outbox) {
+        Integer updated = transactionTemplate.execute(status -> outboxRepository.transitionStatus(
+                outbox.getOutboxId(), ChainOutbox.STATUS_PENDING, ChainOutbox.STATUS_PROCESSING, new Date()));
+        return updated != null && updated == 1;
+    }
+
+    /**
+     * 上链成功：回写交易哈希、确认书籍上链状态，并完成发件箱记录（交易记录由区块投影生成）
+     */
+    private void markDone(ChainOutbox outbox, String txHash) {
+        transactionTemplate.executeWithoutResult(status -> {
+            bookRepository.findById(outbox.getBookId()).ifPresent(book -> {
+                book.setBlockchainTxHash(txHash);
+                book.setChainStatus(Book.CHAIN_STATUS_CONFIRMED);
+            });
+            outboxRepository.transitionStatus(outbox.getOutboxId(),
+                    ChainOutbox.STATUS_PROCESSING, ChainOutbox.STATUS_DONE, new Date());
+        });
+    }
+
+    /**
+     * 整组上链成功：批量加载书籍回写交易哈希（更新语句由JDBC批处理发送），一条语句完成发件箱记录
+     */
+    private void markAllDone(List<Long> outboxIds, Map<Long, String> txHashes) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Book book : bookRepository.findAllById(txHashes.keySet())) {
+                book.setBlockchainTxHash(txHashes.get(book.getBookId()));
+                book.setChainStatus(Book.CHAIN_STATUS_CONFIRMED);
+            }
+            outboxRepository.transitionStatusAll(outboxIds,
+                    ChainOutbox.STATUS_PROCESSING, ChainOutbox.STATUS_DONE, new Date());
+        });
+    }
+
+    /**
+     * 上链失败：未超过最大次数时退回待处理并推迟下次尝试时间，否则标记失败
+     */
+    private void markFailed(ChainOutbox outbox, Throwable error) {
+        log.warn("书籍上链失败，bookId={}", outbox.getBookId(), error);
+        transactionTemplate.executeWithoutResult(status -> {
+            ChainOutbox current = outboxRepository.findById(outbox.getOutboxId()).orElse(null);
+            if (current == null) {
+                return;
+            }
+            current.setAttempts(current.getAttempts() + 1);
+            current.setLastError(truncate(String.valueOf(error.getMessage()), 512));
+            current.setUpdateTime(new Date());
+            if (current.getAttempts() >= maxAttempts) {
+                current.setStatus(ChainOutbox.STATUS_FAILED);
+                bookRepository.findById(outbox.getBookId())
+                        .ifPresent(book -> book.setChainStatus(Book.CHAIN_STATUS_FAILED));
+            } else {
+                current.setStatus(ChainOutbox.STATUS_PENDING);
+                current.setNextAttemptTime(new Date(System.currentTimeMillis() + retryDelay(current.getAttempts())));
+            }
+        });
+    }
+
+    /**
+     * 第n次失败后的重试延迟：基础延迟*2^(n-1)，不超过上限，再叠加至多20%的随机抖动，避免同批失败的记录同时重试
+     */
+    private long retryDelay(int attempts) {
+        long delay = retryBackoffMillis << Math.min(attempts - 1, 30);
+        if (delay <= 0 || delay > retryBackoffMaxMillis) {
+            delay = retryBackoffMaxMillis;
+        }
+        return delay + ThreadLocalRandom.current().nextLong(delay / 5 + 1);
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value.length() <= maxLength ? value : value.substring(0, maxLength);
+    }
+}
@@ -0,0 +1,290 @@
+package com.bookchain.service;
+
+import com.bookchain.repository.TransactionRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 热门盲盒排行引擎：按盲盒创建/转移交易累计指数衰减热度，并维护有界Top-K集合
+ * 热度以基准时间归一化存储（score × 2^((t - base) / halfLife)），排序与当前时间无关，只增不减，
+ * 因此单本书更新只需与Top-K最小值比较；查询为O(K)。定期落盘紧凑快照，重启后从快照检查点追赶
+ */
+@Component
+public class HotBlindBoxRanking {
+    private static final Logger log = LoggerFactory.getLogger(HotBlindBoxRanking.class);
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final int CATCH_UP_PAGE_SIZE = 5000;
+    // 归一化指数超过该值时重设基准时间，避免double溢出
+    private static final double MAX_EXPONENT = 512;
+    // 当前热度低于该值的书籍视为滑出时间窗口，从计数中移除
+    private static final double MIN_LIVE_SCORE = 0.01;
+
+    private final TransactionRepository transactionRepository;
+    private final int topK;
+    private final double halfLifeMillis;
+    private final Path snapshotPath;
+
+    // 使用ReentrantLock而非synchronized：快照落盘期间等待的请求线程若为虚拟线程不会钉住载体线程
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Long, Double> scores = new HashMap<>();
+    private final TreeSet<Long> top; // 按热度降序、书籍ID升序
+    private long baseTime = System.currentTimeMillis();
+    private long lastTransactionId;
+    // restore完成前到达的交易（投影器在应用就绪前即开始写入），恢复后按交易ID去重补录；恢复后置为null
+    private List<TransactionRecordedEvent> pendingBeforeRestore = new ArrayList<>();
+
+    public HotBlindBoxRanking(TransactionRepository transactionRepository,
+                              @Value("${recommendation.hot.top-k:100}") int topK,
+                              @Value("${recommendation.hot.half-life-hours:24}") double halfLifeHours,
+                              @Value("${recommendation.hot.snapshot-path:data/hot-blind-box.snapshot}") String snapshotPath) {
+        this.transactionRepository = transactionRepository;
+        this.topK = topK;
+        this.halfLifeMillis = halfLifeHours * 3600_000L;
+        this.snapshotPath = Paths.get(snapshotPath);
+        this.top = new TreeSet<>((a, b) -> {
+            int byScore = Double.compare(scores.get(b), scores.get(a));
+            return byScore != 0 ? byScore : Long.compare(a, b);
+        });
+    }
+
+    /**
+     * 启动后加载快照，并从快照中的交易ID检查点追赶新增交易，最后补录恢复期间暂存的实时交易
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void restore() {
+        lock.lock();
+        try {
+            loadSnapshot();
+            long afterId = lastTransactionId;
+            int replayed = 0;
+            while (true) {
+                List<Object[]> rows = transactionRepository.findActivitySince(afterId, PageRequest.of(0, CATCH_UP_PAGE_SIZE));
+                for (Object[] row : rows) {
+                    record((Long) row[0], (Long) row[1], (Boolean) row[2], (String) row[3], (Date) row[4]);
+                    afterId = (Long) row[0];
+                }
+                replayed += rows.size();
+                if (rows.size() < CATCH_UP_PAGE_SIZE) {
+                    break;
+                }
+            }
+            log.info("热门盲盒排行已恢复，追赶{}条交易，跟踪{}个盲盒", replayed, scores.size());
+        } finally {
+            // 追赶失败时也补录暂存的交易，避免之后的实时交易一直暂存
+            List<TransactionRecordedEvent> pending = pendingBeforeRestore;
+            pendingBeforeRestore = null;
+            if (pending != null) {
+                pending.forEach(this::record);
+            }
+            lock.unlock();
+        }
+    }
+
+    @TransactionalEventListener
+    public void onTransactionRecorded(TransactionRecordedEvent event) {
+        lock.lock();
+        try {
+            if (pendingBeforeRestore != null) {
+                // 尚未恢复：此时推进检查点会使追赶跳过更早的交易
+                pendingBeforeRestore.add(event);
+                return;
+            }
+            record(event);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 当前最热的至多limit个盲盒ID（热度降序）
+     */
+    public List<Long> topBlindBoxIds(int limit) {
+        lock.lock();
+        try {
+            List<Long> result = new ArrayList<>(Math.min(limit, top.size()));
+            for (Long bookId : top) {
+                if (result.size() >= limit) {
+                    break;
+                }
+                result.add(bookId);
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void record(TransactionRecordedEvent event) {
+        record(event.transactionId(), event.bookId(), event.blindBox(),
+                event.transactionType(), event.transactionTime());
+    }
+
+    private void record(Long transactionId, Long bookId, boolean blindBox, String type, Date time) {
+        if (transactionId != null && transactionId <= lastTransactionId) {
+            return; // 快照已包含该交易
+        }
+        if (transactionId != null) {
+            lastTransactionId = transactionId;
+        }
+        double weight = weightOf(type);
+        if (!blindBox || weight == 0) {
+            return;
+        }
+
+        long eventTime = time != null ? time.getTime() : System.currentTimeMillis();
+        if ((eventTime - baseTime) / halfLifeMillis > MAX_EXPONENT) {
+            rebase(eventTime);
+        }
+        double increment = weight * Math.pow(2, (eventTime - baseTime) / halfLifeMillis);
+
+        // 先移出再更新分值，避免破坏TreeSet排序；比较器按分值查找，新书籍尚无分值，不能参与查找
+        boolean inTop = scores.containsKey(bookId) && top.remove(bookId);
+        scores.merge(bookId, increment, Double::sum);
+        if (inTop || top.size() < topK) {
+            top.add(bookId);
+        } else if (!top.isEmpty() && scores.get(bookId) > scores.get(top.last())) {
+            top.pollLast();
+            top.add(bookId);
+        }
+    }
+
+    private static double weightOf(String type) {
+        if ("TRANSFER".equals(type)) {
+            return 3;
+        }
+        if ("CREATE_BLIND_BOX".equals(type)) {
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * 将基准时间移到newBase并按比例缩放全部分值，同时移除已滑出时间窗口的书籍
+     */
+    private void rebase(long newBase) {
+        double factor = Math.pow(2, -(newBase - baseTime) / halfLifeMillis);
+        top.clear();
+        scores.replaceAll((bookId, score) -> score * factor);
+        scores.values().removeIf(score -> score < MIN_LIVE_SCORE);
+        baseTime = newBase;
+        rebuildTop();
+    }
+
+    private void rebuildTop() {
+        scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed())
+                .limit(topK)
+                .forEach(entry -> top.add(entry.getKey()));
+    }
+
+    /**
+     * 定期修剪过期书籍并落盘快照
+     */
+    @Scheduled(fixedDelayString = "${recommendation.hot.snapshot-interval-ms:60000}")
+    public void snapshot() {
+        lock.lock();
+        try {
+            if (pendingBeforeRestore != null) {
+                return; // 尚未恢复，落盘会用空状态覆盖已有快照
+            }
+            rebase(System.currentTimeMillis());
+            writeSnapshot();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        lock.lock();
+        try {
+            if (pendingBeforeRestore != null) {
+                return;
+            }
+            writeSnapshot();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 快照格式：版本 | 基准时间 | 交易ID检查点 | 条目数 | (书籍ID, 归一化热度)*
+     * 先写临时文件再原子替换，避免进程中断留下半个快照
+     */
+    private void writeSnapshot() {
+        try {
+            Path parent = snapshotPath.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, "hot-blind-box", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeLong(baseTime);
+                out.writeLong(lastTransactionId);
+                out.writeInt(scores.size());
+                for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                    out.writeLong(entry.getKey());
+                    out.writeDouble(entry.getValue());
+                }
+            }
+            Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("热门盲盒排行快照写入失败", e);
+        }
+    }
+
+    private void loadSnapshot() {
+        if (!Files.exists(snapshotPath)) {
+            resetState();
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotPath)))) {
+            if (in.readInt() != SNAPSHOT_VERSION) {
+                log.warn("热门盲盒排行快照版本不匹配，将从头统计");
+                resetState();
+                return;
+            }
+            long snapshotBase = in.readLong();
+            long snapshotTransactionId = in.readLong();
+            int count = in.readInt();
+            Map<Long, Double> loaded = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                loaded.put(in.readLong(), in.readDouble());
+            }
+            top.clear();
+            scores.clear();
+            scores.putAll(loaded);
+            baseTime = snapshotBase;
+            lastTransactionId = snapshotTransactionId;
+            rebuildTop();
+        } catch (IOException e) {
+            log.warn("热门盲盒排行快照读取失败，将从头统计", e);
+            resetState();
+        }
+    }
+
+    /**
+     * 无可用快照时从头统计：清空热度并将检查点归零，追赶从第一条交易开始
+     */
+    private void resetState() {
+        top.clear();
+        scores.clear();
+        baseTime = System.currentTimeMillis();
+        lastTransactionId = 0;
+    }
+}
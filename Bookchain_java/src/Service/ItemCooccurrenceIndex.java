@@ -0,0 +1,269 @@
+package com.bookchain.service;
+
+import com.bookchain.repository.BookRepository;
+import com.bookchain.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+
+/**
+ * 书籍共现模型：同一用户（当前或曾经）拥有过的两本书共现次数+1，存储为原始类型键的稀疏邻接表
+ * 后台全量构建（启动时及定时），期间及之后由书籍上传/转移事件增量更新；
+ * 查询只读取目标书籍的邻接表，每个候选为常数时间；盲盒在选取Top-N时即被排除，返回数量不因过滤而减少
+ */
+@Component
+public class ItemCooccurrenceIndex {
+    private static final Logger log = LoggerFactory.getLogger(ItemCooccurrenceIndex.class);
+    private static final int REBUILD_PAGE_SIZE = 10000;
+
+    /**
+     * 用户历史书籍 + 书籍共现邻接表 + 盲盒集合
+     */
+    private static final class Model {
+        final LongObjectHashMap<LongPostings> userBooks = new LongObjectHashMap<>();
+        final LongObjectHashMap<LongIntHashMap> neighbors = new LongObjectHashMap<>();
+        final LongIntHashMap blindBoxes = new LongIntHashMap(); // 值为1表示盲盒，仅用作集合
+
+        void markBlindBox(long bookId) {
+            if (blindBoxes.get(bookId) == 0) {
+                blindBoxes.addTo(bookId, 1);
+            }
+        }
+
+        boolean isBlindBox(long bookId) {
+            return blindBoxes.get(bookId) != 0;
+        }
+
+        /**
+         * 记录用户拥有过某书（幂等），并与该用户其他书籍两两累加共现
+         */
+        void addOwnership(long userId, long bookId, int maxHistoryPerUser) {
+            LongPostings owned = userBooks.computeIfAbsent(userId, id -> new LongPostings(8));
+            if (owned.contains(bookId)) {
+                return;
+            }
+            // 拥有量超过上限的用户（多为批量上架的卖家）关联信号弱，只记录拥有关系不再累加共现
+            if (owned.size() < maxHistoryPerUser) {
+                LongIntHashMap current = neighbors.computeIfAbsent(bookId, id -> new LongIntHashMap());
+                for (int i = 0; i < owned.size(); i++) {
+                    long other = owned.get(i);
+                    current.addTo(other, 1);
+                    neighbors.computeIfAbsent(other, id -> new LongIntHashMap()).addTo(bookId, 1);
+                }
+            }
+            owned.add(bookId);
+        }
+    }
+
+    private final BookRepository bookRepository;
+    private final TransactionRepository transactionRepository;
+    private final int maxHistoryPerUser;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private Model model = new Model();
+    private List<long[]> pendingDuringRebuild; // 构建期间到达的(userId, bookId, 是否盲盒)，切换前补录
+
+    public ItemCooccurrenceIndex(BookRepository bookRepository,
+                                 TransactionRepository transactionRepository,
+                                 @Value("${recommendation.cooccurrence.max-history-per-user:500}") int maxHistoryPerUser) {
+        this.bookRepository = bookRepository;
+        this.transactionRepository = transactionRepository;
+        this.maxHistoryPerUser = maxHistoryPerUser;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        Thread builder = new Thread(this::rebuild, "cooccurrence-rebuild");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    /**
+     * 全量重建：由当前所有权和交易历史构建新模型，完成后补录构建期间的增量并整体切换
+     */
+    @Scheduled(cron = "${recommendation.cooccurrence.rebuild-cron:0 0 4 * * *}")
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            Model rebuilt = new Model();
+            long afterId = 0;
+            while (true) {
+                List<Object[]> rows = bookRepository.findOwnershipPostings(afterId, PageRequest.of(0, REBUILD_PAGE_SIZE));
+                for (Object[] row : rows) {
+                    rebuilt.addOwnership((Long) row[0], (Long) row[1], maxHistoryPerUser);
+                    if ((Boolean) row[2]) {
+                        rebuilt.markBlindBox((Long) row[1]);
+                    }
+                    afterId = (Long) row[1];
+                }
+                if (rows.size() < REBUILD_PAGE_SIZE) {
+                    break;
+                }
+            }
+            afterId = 0;
+            while (true) {
+                List<Object[]> rows = transactionRepository.findOwnershipHistorySince(afterId, PageRequest.of(0, REBUILD_PAGE_SIZE));
+                for (Object[] row : rows) {
+                    long bookId = (Long) row[3];
+                    if (row[1] != null) {
+                        rebuilt.addOwnership((Long) row[1], bookId, maxHistoryPerUser);
+                    }
+                    if (row[2] != null) {
+                        rebuilt.addOwnership((Long) row[2], bookId, maxHistoryPerUser);
+                    }
+                    afterId = (Long) row[0];
+                }
+                if (rows.size() < REBUILD_PAGE_SIZE) {
+                    break;
+                }
+            }
+
+            lock.writeLock().lock();
+            try {
+                for (long[] pending : pendingDuringRebuild) {
+                    rebuilt.addOwnership(pending[0], pending[1], maxHistoryPerUser);
+                    if (pending[2] != 0) {
+                        rebuilt.markBlindBox(pending[1]);
+                    }
+                }
+                model = rebuilt;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("书籍共现模型重建完成，用户{}个，书籍{}本", rebuilt.userBooks.size(), rebuilt.neighbors.size());
+        } catch (Exception e) {
+            log.error("书籍共现模型重建失败，继续使用增量模型", e);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                pendingDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * 书籍上传/转移提交后，新所有者获得该书
+     */
+    @TransactionalEventListener
+    public void onBookChanged(BookChangedEvent event) {
+        if (event.ownerId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            model.addOwnership(event.ownerId(), event.bookId(), maxHistoryPerUser);
+            if (event.blindBox()) {
+                model.markBlindBox(event.bookId());
+            }
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(new long[]{event.ownerId(), event.bookId(), event.blindBox() ? 1 : 0});
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 拥有过该书的用户还拥有过的书籍（不含盲盒），按共现次数降序
+     */
+    public List<Long> alsoOwned(long bookId, int limit) {
+        lock.readLock().lock();
+        try {
+            Model current = model;
+            LongIntHashMap neighbors = current.neighbors.get(bookId);
+            if (neighbors == null) {
+                return List.of();
+            }
+            return topN(neighbors, limit, current::isBlindBox);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 为用户推荐：累加其拥有过的每本书的共现邻居得分，排除已拥有的书籍和盲盒
+     */
+    public List<Long> recommendForUser(long userId, int limit) {
+        lock.readLock().lock();
+        try {
+            Model current = model;
+            LongPostings owned = current.userBooks.get(userId);
+            if (owned == null || owned.size() == 0) {
+                return List.of();
+            }
+            LongIntHashMap scores = new LongIntHashMap();
+            // 只取ID最大（最新上架）的上限数量书籍作为种子，保证请求耗时有界
+            for (int i = Math.max(0, owned.size() - maxHistoryPerUser); i < owned.size(); i++) {
+                LongIntHashMap neighbors = current.neighbors.get(owned.get(i));
+                if (neighbors != null) {
+                    neighbors.forEach(scores::addTo);
+                }
+            }
+            return topN(scores, limit, id -> owned.contains(id) || current.isBlindBox(id));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 选出计数最高的至多limit个键（limit较小，使用有序插入），被skip命中的键不参与选取
+     */
+    private static List<Long> topN(LongIntHashMap counts, int limit, LongPredicate skip) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        long[] ids = new long[limit];
+        int[] best = new int[limit];
+        int[] filled = {0};
+        counts.forEach((id, count) -> {
+            if (skip.test(id)) {
+                return;
+            }
+            int n = filled[0];
+            if (n == limit && count <= best[n - 1]) {
+                return;
+            }
+            int pos = n == limit ? n - 1 : n;
+            while (pos > 0 && best[pos - 1] < count) {
+                ids[pos] = ids[pos - 1];
+                best[pos] = best[pos - 1];
+                pos--;
+            }
+            ids[pos] = id;
+            best[pos] = count;
+            if (n < limit) {
+                filled[0]++;
+            }
+        });
+        List<Long> result = new ArrayList<>(filled[0]);
+        for (int i = 0; i < filled[0]; i++) {
+            result.add(ids[i]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,65 @@
+package com.bookchain.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * 流式JSON导出：在只读事务中沿数据库游标逐行序列化为JSON数组写入响应流
+ * 每写出一批即清空持久化上下文，内存占用与总行数无关
+ */
+@Component
+public class JsonArrayExporter {
+    private static final int CLEAR_EVERY_ROWS = 500;
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter rowWriter;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public JsonArrayExporter(ObjectMapper objectMapper, EntityManager entityManager,
+                             PlatformTransactionManager transactionManager) {
+        this.objectMapper = objectMapper;
+        // 逐行写入时不逐行flush，由缓冲区和分批flush控制写出节奏
+        this.rowWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * 将rows打开的结果流写为JSON数组，结果流必须在本方法提供的事务内打开
+     */
+    public <T> void export(Supplier<Stream<T>> rows, OutputStream out) {
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<T> stream = rows.get();
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+                generator.writeStartArray();
+                int written = 0;
+                for (Iterator<T> it = stream.iterator(); it.hasNext(); ) {
+                    rowWriter.writeValue(generator, it.next());
+                    if (++written % CLEAR_EVERY_ROWS == 0) {
+                        generator.flush();
+                        entityManager.clear(); // 已写出的实体不再需要，释放持久化上下文
+                    }
+                }
+                generator.writeEndArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException("导出数据写入失败", e);
+            }
+        });
+    }
+}
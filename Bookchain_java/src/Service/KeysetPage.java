@@ -0,0 +1,58 @@
+package com.bookchain.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * 键集分页结果：本页数据 + 下一页游标（无更多数据时为null）
+ * 游标对客户端不透明，内部为上一页最后一条记录的主键
+ */
+public record KeysetPage<T>(List<T> items, String nextCursor) {
+    private static final String CURSOR_PREFIX = "k1:";
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    /**
+     * 由多取一条的查询结果构建分页：取到limit + 1条说明还有下一页
+     */
+    public static <T> KeysetPage<T> of(List<T> fetched, int limit, ToLongFunction<T> idOf) {
+        if (fetched.size() <= limit) {
+            return new KeysetPage<>(fetched, null);
+        }
+        List<T> items = fetched.subList(0, limit);
+        return new KeysetPage<>(items, encodeCursor(idOf.applyAsLong(items.get(limit - 1))));
+    }
+
+    public static String encodeCursor(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((CURSOR_PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标为上一页最后一条记录的主键，首页（游标为空）返回0
+     */
+    public static long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(CURSOR_PREFIX)) {
+                throw new IllegalArgumentException("无效的分页游标");
+            }
+            return Long.parseLong(decoded.substring(CURSOR_PREFIX.length()));
+        } catch (IllegalArgumentException e) { // 含NumberFormatException及Base64解码错误
+            throw new IllegalArgumentException("无效的分页游标", e);
+        }
+    }
+
+    /**
+     * 将请求的每页条数限制在[1, MAX_LIMIT]
+     */
+    public static int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+}
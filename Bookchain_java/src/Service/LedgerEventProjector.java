@@ -0,0 +1,293 @@
+package com.bookchain.service;
+
+import com.bookchain.entity.Book;
+import com.bookchain.entity.ChainCheckpoint;
+import com.bookchain.entity.Transaction;
+import com.bookchain.entity.User;
+import com.bookchain.repository.BookRepository;
+import com.bookchain.repository.ChainCheckpointRepository;
+import com.bookchain.repository.TransactionRepository;
+import com.bookchain.repository.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.hyperledger.fabric.gateway.Network;
+import org.hyperledger.fabric.sdk.BlockEvent;
+import org.hyperledger.fabric.sdk.BlockInfo;
+import org.hyperledger.fabric.sdk.ChaincodeEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 账本事件投影服务，从已提交区块中解析资产创建/转移写入，批量投影到bc_transaction
+ * 以持久化检查点为起点回放区块，重启后自动追赶；按交易ID去重，重复回放不会产生重复记录
+ */
+@Service
+public class LedgerEventProjector {
+    private static final Logger log = LoggerFactory.getLogger(LedgerEventProjector.class);
+    private static final String LISTENER_NAME = "bc_transaction";
+
+    /**
+     * 从区块中解析出的一次资产写入
+     */
+    private record LedgerWrite(String txId, Date txTime, String function,
+                               String assetId, String owner, String type) {}
+
+    private final Network network;
+    private final TransactionRepository transactionRepository;
+    private final BookRepository bookRepository;
+    private final UserRepository userRepository;
+    private final ChainCheckpointRepository checkpointRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final String chaincodeName;
+    private final long retryDelayMillis;
+    private final ScheduledExecutorService retryScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "ledger-projector-retry");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private Consumer<BlockEvent> blockListener;
+    private volatile long lastProcessedBlock = -1;
+    private volatile boolean suspended; // 处理失败后暂停，等待从检查点重新订阅
+
+    public LedgerEventProjector(Network network,
+                                TransactionRepository transactionRepository,
+                                BookRepository bookRepository,
+                                UserRepository userRepository,
+                                ChainCheckpointRepository checkpointRepository,
+                                TransactionTemplate transactionTemplate,
+                                ObjectMapper objectMapper,
+                                ApplicationEventPublisher eventPublisher,
+                                @Value("${fabric.gateway.chaincode.name:bookchain}") String chaincodeName,
+                                @Value("${ledger.projector.retry-delay-ms:5000}") long retryDelayMillis) {
+        this.network = network;
+        this.transactionRepository = transactionRepository;
+        this.bookRepository = bookRepository;
+        this.userRepository = userRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.chaincodeName = chaincodeName;
+        this.retryDelayMillis = retryDelayMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        subscribe();
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        retryScheduler.shutdownNow();
+        if (blockListener != null) {
+            network.removeBlockListener(blockListener);
+            blockListener = null;
+        }
+    }
+
+    /**
+     * 从持久化检查点的下一个区块开始订阅
+     */
+    private synchronized void subscribe() {
+        lastProcessedBlock = checkpointRepository.findById(LISTENER_NAME)
+                .map(ChainCheckpoint::getBlockNumber)
+                .orElse(-1L);
+        suspended = false;
+        blockListener = network.addBlockListener(lastProcessedBlock + 1, this::onBlock);
+        log.info("账本投影从区块{}开始回放", lastProcessedBlock + 1);
+    }
+
+    private synchronized void resubscribe() {
+        if (blockListener != null) {
+            network.removeBlockListener(blockListener);
+            blockListener = null;
+        }
+        try {
+            subscribe();
+        } catch (Exception e) {
+            log.error("账本投影重新订阅失败", e);
+            retryScheduler.schedule(this::resubscribe, retryDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void onBlock(BlockEvent event) {
+        long blockNumber = event.getBlockNumber();
+        if (suspended || blockNumber <= lastProcessedBlock) {
+            return; // 暂停中或重复投递的区块
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> projectBlock(event));
+            lastProcessedBlock = blockNumber;
+        } catch (Exception e) {
+            // 不跳过失败区块：暂停处理，稍后从检查点重新订阅
+            log.error("区块{}投影失败，{}ms后从检查点重试", blockNumber, retryDelayMillis, e);
+            suspended = true;
+            retryScheduler.schedule(this::resubscribe, retryDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 投影单个区块，交易记录与检查点在同一数据库事务中提交
+     */
+    private void projectBlock(BlockEvent event) {
+        List<LedgerWrite> writes = decode(event);
+        if (!writes.isEmpty()) {
+            // 保存后发布交易记录事件，监听方在本事务提交后处理
+            for (Transaction saved : transactionRepository.saveAll(toTransactions(writes))) {
+                eventPublisher.publishEvent(new TransactionRecordedEvent(saved.getTransactionId(),
+                        saved.getBook().getBookId(), saved.getBook().isBlindBox(),
+                        saved.getTransactionType(), saved.getTransactionTime()));
+            }
+        }
+
+        ChainCheckpoint checkpoint = checkpointRepository.findById(LISTENER_NAME)
+                .orElseGet(() -> new ChainCheckpoint(LISTENER_NAME));
+        checkpoint.setBlockNumber(event.getBlockNumber());
+        checkpoint.setUpdateTime(new Date());
+        checkpointRepository.save(checkpoint);
+    }
+
+    /**
+     * 解析区块中有效交易对本链码的createAsset/createAssetsBatch/transferAsset调用
+     */
+    private List<LedgerWrite> decode(BlockEvent event) {
+        List<LedgerWrite> writes = new ArrayList<>();
+        for (BlockEvent.TransactionEvent tx : event.getTransactionEvents()) {
+            if (!tx.isValid()) {
+                continue; // 背书或MVCC校验失败的交易未改变状态
+            }
+            for (BlockInfo.TransactionEnvelopeInfo.TransactionActionInfo action : tx.getTransactionActionInfos()) {
+                if (!chaincodeName.equals(action.getChaincodeIDName()) || action.getChaincodeInputArgsCount() == 0) {
+                    continue;
+                }
+                String function = new String(action.getChaincodeInputArgs(0), StandardCharsets.UTF_8);
+                Map<String, String> params = new HashMap<>();
+                for (int i = 1; i + 1 < action.getChaincodeInputArgsCount(); i += 2) {
+                    params.put(new String(action.getChaincodeInputArgs(i), StandardCharsets.UTF_8),
+                            new String(action.getChaincodeInputArgs(i + 1), StandardCharsets.UTF_8));
+                }
+                try {
+                    decodeAction(tx, function, params, action.getEvent(), writes);
+                } catch (Exception e) {
+                    log.warn("无法解析交易{}的链码参数，已跳过", tx.getTransactionID(), e);
+                }
+            }
+        }
+        return writes;
+    }
+
+    private void decodeAction(BlockEvent.TransactionEvent tx, String function, Map<String, String> params,
+                              ChaincodeEvent chaincodeEvent, List<LedgerWrite> writes) throws Exception {
+        String txId = tx.getTransactionID();
+        Date txTime = tx.getTimestamp();
+        switch (function) {
+            case "createAsset":
+            case "transferAsset":
+                writes.add(new LedgerWrite(txId, txTime, function,
+                        params.get("assetId"), params.get("owner"), params.getOrDefault("type", "NORMAL")));
+                break;
+            case "createAssetsBatch":
+                // 批量创建中被链码拒绝的资产未写入，只投影资产变更事件中列出的资产
+                Set<String> changed = new HashSet<>();
+                if (chaincodeEvent != null && chaincodeEvent.getPayload() != null) {
+                    for (JsonNode id : objectMapper.readTree(chaincodeEvent.getPayload())) {
+                        changed.add(id.asText());
+                    }
+                }
+                for (JsonNode item : objectMapper.readTree(params.getOrDefault("assets", "[]"))) {
+                    String assetId = item.path("assetId").asText(null);
+                    if (changed.contains(assetId)) {
+                        writes.add(new LedgerWrite(txId, txTime, "createAsset",
+                                assetId, item.path("owner").asText(null), item.path("type").asText("NORMAL")));
+                    }
+                }
+                break;
+            default:
+                break; // 只读查询和索引回填不产生交易记录
+        }
+    }
+
+    /**
+     * 将资产写入转换为交易记录，已投影过的交易ID直接跳过
+     */
+    private List<Transaction> toTransactions(List<LedgerWrite> writes) {
+        Set<String> txIds = new HashSet<>();
+        Set<Long> bookIds = new HashSet<>();
+        Set<String> addresses = new HashSet<>();
+        for (LedgerWrite write : writes) {
+            txIds.add(write.txId());
+            parseBookId(write.assetId()).ifPresent(bookIds::add);
+            if (write.owner() != null) {
+                addresses.add(write.owner());
+            }
+        }
+        Set<String> projected = transactionRepository.findExistingTxHashes(txIds);
+        Map<Long, Book> books = new HashMap<>();
+        for (Book book : bookRepository.findAllById(bookIds)) {
+            books.put(book.getBookId(), book);
+        }
+        Map<String, User> users = new HashMap<>();
+        for (User user : userRepository.findByBlockchainAddressIn(addresses)) {
+            users.put(user.getBlockchainAddress(), user);
+        }
+
+        // 同一区块内可能多次转移同一本书，按顺序跟踪当前所有者
+        Map<Long, User> currentOwners = new HashMap<>();
+        List<Transaction> transactions = new ArrayList<>();
+        for (LedgerWrite write : writes) {
+            if (projected.contains(write.txId())) {
+                continue;
+            }
+            Book book = parseBookId(write.assetId()).map(books::get).orElse(null);
+            if (book == null) {
+                log.warn("链上资产{}在数据库中不存在，交易{}未投影", write.assetId(), write.txId());
+                continue;
+            }
+            User owner = users.get(write.owner());
+
+            Transaction transaction = new Transaction();
+            transaction.setBook(book);
+            transaction.setBlockchainTxHash(write.txId());
+            transaction.setTransactionTime(write.txTime());
+            if ("transferAsset".equals(write.function())) {
+                User previousOwner = currentOwners.containsKey(book.getBookId())
+                        ? currentOwners.get(book.getBookId())
+                        : transactionRepository.findTopByBookBookIdOrderByTransactionIdDesc(book.getBookId())
+                                .map(Transaction::getReceiver)
+                                .orElse(null);
+                transaction.setTransactionType("TRANSFER");
+                transaction.setSender(previousOwner);
+            } else {
+                transaction.setTransactionType("BLIND_BOX".equals(write.type()) ? "CREATE_BLIND_BOX" : "CREATE_BOOK");
+            }
+            transaction.setReceiver(owner);
+            currentOwners.put(book.getBookId(), owner);
+            transactions.add(transaction);
+        }
+        return transactions;
+    }
+
+    private static Optional<Long> parseBookId(String assetId) {
+        try {
+            return assetId == null ? Optional.empty() : Optional.of(Long.parseLong(assetId));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+}
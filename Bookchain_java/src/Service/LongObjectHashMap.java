@@ -0,0 +1,94 @@
+package com.bookchain.service;
+
+import java.util.function.LongFunction;
+
+/**
+ * long -> 对象 开放寻址哈希表（线性探测），避免装箱long键
+ * 键0保留为空槽标记（非线程安全，由调用方加锁）
+ */
+class LongObjectHashMap<V> {
+
+    @FunctionalInterface
+    interface LongObjectConsumer<V> {
+        void accept(long key, V value);
+    }
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+    private int resizeAt;
+
+    LongObjectHashMap() {
+        this(16);
+    }
+
+    LongObjectHashMap(int expectedSize) {
+        allocate(LongIntHashMap.tableSizeFor(expectedSize));
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        int slot = find(key);
+        return keys[slot] == key ? (V) values[slot] : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    V computeIfAbsent(long key, LongFunction<V> factory) {
+        LongIntHashMap.checkKey(key);
+        int slot = find(key);
+        if (keys[slot] == key) {
+            return (V) values[slot];
+        }
+        V value = factory.apply(key);
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size >= resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return value;
+    }
+
+    int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    void forEach(LongObjectConsumer<V> consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                consumer.accept(keys[i], (V) values[i]);
+            }
+        }
+    }
+
+    private int find(long key) {
+        int slot = LongIntHashMap.mix(key) & mask;
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(newCapacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+}
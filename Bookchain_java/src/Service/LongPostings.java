@@ -0,0 +1,77 @@
+package com.bookchain.service;
+
+import java.util.Arrays;
+
+/**
+ * 有序long倒排表，以原始数组存储ID，避免装箱对象开销（非线程安全，由调用方加锁）
+ */
+class LongPostings {
+    private long[] ids;
+    private int size;
+
+    LongPostings() {
+        this(16);
+    }
+
+    LongPostings(int initialCapacity) {
+        this.ids = new long[Math.max(initialCapacity, 4)];
+    }
+
+    /**
+     * 插入ID，已存在时忽略
+     * @return 是否新增
+     */
+    boolean add(long id) {
+        // 启动重建按ID升序追加，走快速路径
+        if (size == 0 || ids[size - 1] < id) {
+            ensureCapacity(size + 1);
+            ids[size++] = id;
+            return true;
+        }
+        int pos = Arrays.binarySearch(ids, 0, size, id);
+        if (pos >= 0) {
+            return false;
+        }
+        int insertAt = -pos - 1;
+        ensureCapacity(size + 1);
+        System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+        ids[insertAt] = id;
+        size++;
+        return true;
+    }
+
+    /**
+     * 删除ID
+     * @return 是否存在并已删除
+     */
+    boolean remove(long id) {
+        int pos = Arrays.binarySearch(ids, 0, size, id);
+        if (pos < 0) {
+            return false;
+        }
+        System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+        size--;
+        return true;
+    }
+
+    boolean contains(long id) {
+        return Arrays.binarySearch(ids, 0, size, id) >= 0;
+    }
+
+    long get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return ids[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(required, ids.length + (ids.length >> 1)));
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.bookchain.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 密码哈希执行器：BCrypt计算在固定大小的专用线程池中进行，排队数有上限，
+ * 饱和时立即拒绝（返回429），注册/登录高峰不会占满请求处理线程
+ * BCrypt为CPU密集计算，线程数默认等于CPU核数，虚拟线程模式下同样在这组平台线程上执行
+ */
+@Component
+public class PasswordHasher {
+    private static final int MAX_COST = 31;
+
+    private final BCryptPasswordEncoder encoder;
+    private final int cost;
+    private final ThreadPoolExecutor executor;
+    private final MeterRegistry meterRegistry;
+    private final Timer encodeTimer;
+    private final Timer[] matchTimers = new Timer[MAX_COST + 1]; // 按存储哈希的代价因子分别计时，首次遇到时注册
+    private final Counter rejectedCounter;
+    private final String unknownUserHash; // 用户不存在时用于等代价校验
+
+    public PasswordHasher(@Value("${security.bcrypt.cost:10}") int cost,
+                          @Value("${security.bcrypt.threads:0}") int threads,
+                          @Value("${security.bcrypt.queue-capacity:64}") int queueCapacity,
+                          MeterRegistry meterRegistry) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("密码哈希队列容量需大于0");
+        }
+        this.encoder = new BCryptPasswordEncoder(cost); // 代价因子超出4-31时抛出IllegalArgumentException
+        this.cost = cost;
+        this.unknownUserHash = encoder.encode("unknown-user");
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, "password-hasher-" + threadIndex.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.meterRegistry = meterRegistry;
+
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "passwordHasher");
+        this.encodeTimer = Timer.builder("security.password.hash")
+                .description("BCrypt计算耗时（不含排队）")
+                .tags("operation", "encode", "cost", String.valueOf(cost))
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("security.password.hash.rejected")
+                .description("密码哈希执行器饱和被拒绝的请求数")
+                .register(meterRegistry);
+        Gauge.builder("security.password.bcrypt.cost", () -> this.cost)
+                .description("当前配置的BCrypt代价因子")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 以当前代价因子计算密码哈希
+     * @throws PasswordHashingBusyException 执行器饱和
+     */
+    public String encode(CharSequence rawPassword) {
+        return execute(() -> encodeTimer.record(() -> encoder.encode(rawPassword)));
+    }
+
+    /**
+     * 校验密码与存储的哈希是否匹配
+     * @throws PasswordHashingBusyException 执行器饱和
+     */
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        Timer timer = matchTimer(costOf(encodedPassword));
+        return execute(() -> timer.record(() -> encoder.matches(rawPassword, encodedPassword)));
+    }
+
+    /**
+     * 用户不存在时同样执行一次校验，避免通过响应时间判断用户名是否存在
+     */
+    public void simulateMatch(CharSequence rawPassword) {
+        matches(rawPassword, unknownUserHash);
+    }
+
+    /**
+     * 存储的哈希代价因子与当前配置不同（调高或调低），登录成功后应以当前配置重新哈希
+     */
+    public boolean needsRehash(String encodedPassword) {
+        return costOf(encodedPassword) != cost;
+    }
+
+    private <T> T execute(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new PasswordHashingBusyException();
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("密码哈希被中断", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("密码哈希失败", e.getCause());
+        }
+    }
+
+    private Timer matchTimer(int hashCost) {
+        int index = hashCost >= 0 && hashCost <= MAX_COST ? hashCost : 0; // 无法解析的哈希计入0
+        Timer timer = matchTimers[index];
+        if (timer == null) {
+            // 并发首次注册返回同一个计时器，无需加锁
+            timer = Timer.builder("security.password.hash")
+                    .description("BCrypt计算耗时（不含排队）")
+                    .tags("operation", "matches", "cost", String.valueOf(index))
+                    .register(meterRegistry);
+            matchTimers[index] = timer;
+        }
+        return timer;
+    }
+
+    /**
+     * 从$2a$10$...格式的哈希中解析代价因子，格式不符时返回-1
+     */
+    private static int costOf(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$'
+                || encodedPassword.charAt(3) != '$' || encodedPassword.charAt(6) != '$') {
+            return -1;
+        }
+        char tens = encodedPassword.charAt(4);
+        char ones = encodedPassword.charAt(5);
+        if (tens < '0' || tens > '9' || ones < '0' || ones > '9') {
+            return -1;
+        }
+        return (tens - '0') * 10 + (ones - '0');
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,15 @@
+package com.bookchain.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 密码哈希执行器已饱和，请求被快速拒绝，客户端应稍后重试
+ */
+@ResponseStatus(value = HttpStatus.TOO_MANY_REQUESTS, reason = "请求过多，请稍后重试")
+public class PasswordHashingBusyException extends RuntimeException {
+
+    public PasswordHashingBusyException() {
+        super("密码哈希繁忙，请稍后重试");
+    }
+}
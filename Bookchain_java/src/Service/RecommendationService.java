@@ -3,6 +3,7 @@ package com.bookchain.service;
 import com.bookchain.entity.Book;
 import com.bookchain.entity.User;
 import com.bookchain.repository.BookRepository;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -13,9 +14,16 @@ import java.util.stream.Collectors;
 @Service
 public class RecommendationService {
     private final BookRepository bookRepository;
+    private final CategoryIndex categoryIndex;
+    private final HotBlindBoxRanking hotBlindBoxRanking;
+    private final ItemCooccurrenceIndex cooccurrenceIndex;
 
-    public RecommendationService(BookRepository bookRepository) {
+    public RecommendationService(BookRepository bookRepository, CategoryIndex categoryIndex,
+                                 HotBlindBoxRanking hotBlindBoxRanking, ItemCooccurrenceIndex cooccurrenceIndex) {
         this.bookRepository = bookRepository;
+        this.categoryIndex = categoryIndex;
+        this.hotBlindBoxRanking = hotBlindBoxRanking;
+        this.cooccurrenceIndex = cooccurrenceIndex;
     }
 
     /**
@@ -29,51 +37,73 @@ public class RecommendationService {
         // 解析用户兴趣标签（如 "文学,科幻" 拆分为列表）
         List<String> interests = Arrays.asList(user.getInterests().split(","));
 
-        // 查询所有非盲盒书籍中匹配兴趣类别的书籍
-        List<Book> matchedBooks = bookRepository.findAll().stream()
-                .filter(book -> !book.isBlindBox()) // 非盲盒书籍显示详情
-                .filter(book -> interests.contains(book.getCategory()))
-                .collect(Collectors.toList());
-
-        // 随机排序并限制结果数量
-        return matchedBooks.stream()
-                .sorted((a, b) -> new Random().nextInt()) // 随机排序增加多样性
-                .limit(limit)
-                .collect(Collectors.toList());
+        // 从类别索引中随机抽取匹配兴趣类别的非盲盒书籍ID（随机增加多样性），只加载被选中的书籍
+        return loadInOrder(categoryIndex.sample(interests, limit));
     }
 
     /**
      * 推荐热门盲盒书籍（基于交易频率）
      */
     public List<Book> recommendHotBlindBoxes(int limit) {
-        // 查询所有盲盒书籍并按上传时间倒序（模拟热门程度，可替换为交易次数统计）
-        return bookRepository.findByIsBlindBox(true).stream()
-                .sorted((a, b) -> Long.compare(b.getUploadTime(), a.getUploadTime()))
-                .limit(limit)
-                .collect(Collectors.toList());
+        // 按时间衰减的创建/转移热度取Top-K
+        List<Book> hot = new ArrayList<>(loadInOrder(hotBlindBoxRanking.topBlindBoxIds(limit)));
+        if (hot.size() >= limit) {
+            return hot;
+        }
+
+        // 热度数据不足（如冷启动）时，用最新上传的盲盒补足
+        Set<Long> picked = hot.stream().map(Book::getBookId).collect(Collectors.toSet());
+        for (Book book : bookRepository.findByIsBlindBoxOrderByUploadTimeDesc(true, PageRequest.of(0, limit))) {
+            if (hot.size() >= limit) {
+                break;
+            }
+            if (picked.add(book.getBookId())) {
+                hot.add(book);
+            }
+        }
+        return hot;
     }
 
     /**
-     * 推荐相似用户的书籍（简单协同过滤，示例逻辑）
+     * 按给定ID顺序批量加载书籍，已不存在的书籍跳过
      */
-    public List<Book> recommendBySimilarUsers(User targetUser, int limit) {
-        // 模拟逻辑：假设兴趣标签相同的用户为相似用户
-        List<User> similarUsers = bookRepository.findAllUsersByInterests(targetUser.getInterests());
-        if (similarUsers.isEmpty()) {
+    private List<Book> loadInOrder(List<Long> bookIds) {
+        if (bookIds.isEmpty()) {
             return Collections.emptyList();
         }
+        Map<Long, Book> books = bookRepository.findAllById(bookIds).stream()
+                .collect(Collectors.toMap(Book::getBookId, book -> book));
+        return bookIds.stream()
+                .map(books::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
 
-        // 收集相似用户的书籍并去重
-        Set<Book> recommendedBooks = new HashSet<>();
-        for (User user : similarUsers) {
-            recommendedBooks.addAll(user.getOwnedBooks());
+    /**
+     * 推荐相似用户的书籍（基于书籍共现的协同过滤：拥有过相同书籍的用户还拥有过的书籍）
+     */
+    public List<Book> recommendBySimilarUsers(User targetUser, int limit) {
+        List<Book> books = withoutBlindBoxes(loadInOrder(cooccurrenceIndex.recommendForUser(targetUser.getUserId(), limit)));
+        if (books.isEmpty()) {
+            return recommendByInterests(targetUser, limit); // 无所有权历史的新用户退回兴趣推荐
         }
+        return books;
+    }
 
-        // 排除目标用户已拥有的书籍
-        recommendedBooks.removeAll(targetUser.getOwnedBooks());
+    /**
+     * 拥有过该书的用户还拥有过的书籍（按共现次数降序）
+     */
+    public List<Book> recommendAlsoOwned(Long bookId, int limit) {
+        return withoutBlindBoxes(loadInOrder(cooccurrenceIndex.alsoOwned(bookId, limit)));
+    }
 
-        return recommendedBooks.stream()
-                .limit(limit)
+    /**
+     * 盲盒内容对非所有者不可见，不出现在基于所有权的推荐结果中
+     * 共现索引选取时已排除盲盒，这里只兜底索引尚未感知的状态，正常情况下不会减少结果数量
+     */
+    private static List<Book> withoutBlindBoxes(List<Book> books) {
+        return books.stream()
+                .filter(book -> !book.isBlindBox())
                 .collect(Collectors.toList());
     }
 }
@@ -0,0 +1,14 @@
+package com.bookchain.service;
+
+import java.util.Date;
+
+/**
+ * 交易记录事件，账本投影写入bc_transaction后发布（事务提交后处理），驱动热度排行等增量统计
+ */
+public record TransactionRecordedEvent(
+        Long transactionId,
+        Long bookId,
+        boolean blindBox,
+        String transactionType,
+        Date transactionTime
+) {}
@@ -0,0 +1,85 @@
+package com.bookchain.service;
+
+import com.bookchain.repository.TransactionRepository;
+import com.bookchain.repository.TransactionView;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * 交易记录服务类，提供交易记录的查询与导出
+ * 交易记录由LedgerEventProjector从已提交区块投影写入，本服务只读，均返回联表查询的只读视图
+ */
+@Service
+@Transactional(readOnly = true)
+public class TransactionService {
+    private final TransactionRepository transactionRepository;
+    private final JsonArrayExporter jsonArrayExporter;
+
+    public TransactionService(TransactionRepository transactionRepository, JsonArrayExporter jsonArrayExporter) {
+        this.transactionRepository = transactionRepository;
+        this.jsonArrayExporter = jsonArrayExporter;
+    }
+
+    /**
+     * 键集分页查询所有交易记录，按交易ID升序
+     */
+    public KeysetPage<TransactionView> getTransactionsPage(String cursor, int limit) {
+        int pageSize = KeysetPage.clampLimit(limit);
+        List<TransactionView> fetched = transactionRepository.findPageAfter(KeysetPage.decodeCursor(cursor),
+                PageRequest.of(0, pageSize + 1)); // 多取一条判断是否还有下一页
+        return KeysetPage.of(fetched, pageSize, TransactionView::transactionId);
+    }
+
+    /**
+     * 将全部交易记录以JSON数组流式写出，内存占用与记录总数无关
+     */
+    public void exportTransactions(OutputStream out) {
+        jsonArrayExporter.export(transactionRepository::streamAll, out);
+    }
+
+    /**
+     * 根据书籍ID查询交易记录
+     */
+    public List<TransactionView> getTransactionsByBookId(Long bookId) {
+        return transactionRepository.findViewsByBookId(bookId);
+    }
+
+    /**
+     * 查询用户作为发起方的交易记录
+     */
+    public List<TransactionView> getTransactionsBySender(Long userId) {
+        return transactionRepository.findViewsBySender(userId);
+    }
+
+    /**
+     * 查询用户作为接收方的交易记录
+     */
+    public List<TransactionView> getTransactionsByReceiver(Long userId) {
+        return transactionRepository.findViewsByReceiver(userId);
+    }
+
+    /**
+     * 查询用户参与的全部交易记录（发起方或接收方），按交易ID升序
+     */
+    public List<TransactionView> getTransactionsByUser(Long userId) {
+        return transactionRepository.findViewsByUser(userId);
+    }
+
+    /**
+     * 根据交易类型过滤交易记录
+     */
+    public List<TransactionView> filterByTransactionType(String transactionType) {
+        return transactionRepository.findViewsByType(transactionType);
+    }
+
+    /**
+     * 根据区块链交易哈希查询交易记录（批量创建的交易对应多条记录）
+     */
+    public List<TransactionView> getTransactionsByBlockchainTxHash(String txHash) {
+        return transactionRepository.findViewsByTxHash(txHash);
+    }
+}
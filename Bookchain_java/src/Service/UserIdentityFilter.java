@@ -0,0 +1,198 @@
+package com.bookchain.service;
+
+import com.bookchain.entity.User;
+import com.bookchain.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+
+/**
+ * 注册查重预检：邮箱、用户名、区块链地址各一个布隆过滤器，过滤器判定"一定不存在"时跳过数据库查询
+ * 启动后在后台从数据库构建，构建完成前一律判定"可能存在"；新用户写入后立即加入，
+ * 并定期追赶其他实例注册的用户。唯一约束仍是最终依据，过滤器只用于省去绝大多数必然落空的查询
+ */
+@Component
+public class UserIdentityFilter {
+    private static final Logger log = LoggerFactory.getLogger(UserIdentityFilter.class);
+    private static final int SEED_PAGE_SIZE = 10000;
+    // 自增ID的提交顺序可能与分配顺序不同，追赶时回退一段ID重新读取（添加幂等）
+    private static final long CATCH_UP_OVERLAP = 1000;
+
+    /**
+     * 单个字段的过滤器及其命中统计
+     */
+    private static final class Field {
+        final BloomFilter filter;
+        final Counter absent;
+        final Counter maybe;
+        final Counter falsePositives;
+
+        Field(String name, long expectedEntries, double falsePositiveRate, MeterRegistry registry) {
+            this.filter = new BloomFilter(expectedEntries, falsePositiveRate);
+            this.absent = checkCounter(name, "absent", registry);
+            this.maybe = checkCounter(name, "maybe", registry);
+            this.falsePositives = Counter.builder("user.identity.filter.false_positives")
+                    .description("过滤器判定可能存在但数据库中不存在的次数")
+                    .tag("field", name)
+                    .register(registry);
+            Gauge.builder("user.identity.filter.memory", filter, BloomFilter::memoryBytes)
+                    .description("过滤器位数组占用内存")
+                    .tag("field", name)
+                    .baseUnit("bytes")
+                    .register(registry);
+            Gauge.builder("user.identity.filter.entries", filter, BloomFilter::approximateEntries)
+                    .description("过滤器中的近似条目数")
+                    .tag("field", name)
+                    .register(registry);
+            Gauge.builder("user.identity.filter.expected_fpp", filter, BloomFilter::expectedFalsePositiveRate)
+                    .description("按当前条目数估算的误判率")
+                    .tag("field", name)
+                    .register(registry);
+        }
+
+        private static Counter checkCounter(String field, String result, MeterRegistry registry) {
+            return Counter.builder("user.identity.filter.checks")
+                    .description("过滤器预检次数")
+                    .tags("field", field, "result", result)
+                    .register(registry);
+        }
+
+        /**
+         * 过滤器判定一定不存在时直接返回false，否则查询数据库确认
+         * @param key 过滤器中的键（邮箱为小写形式）
+         */
+        boolean exists(String key, String value, Predicate<String> database, boolean ready) {
+            if (ready && !filter.mightContain(key)) {
+                absent.increment();
+                return false;
+            }
+            maybe.increment();
+            boolean found = database.test(value);
+            if (ready && !found) {
+                falsePositives.increment();
+            }
+            return found;
+        }
+    }
+
+    private final UserRepository userRepository;
+    private final Field emails;
+    private final Field usernames;
+    private final Field addresses;
+    private volatile boolean ready;
+    private volatile long maxSeenUserId;
+
+    public UserIdentityFilter(UserRepository userRepository,
+                              @Value("${user.identity-filter.expected-entries:1000000}") long expectedEntries,
+                              @Value("${user.identity-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                              MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.emails = new Field("email", expectedEntries, falsePositiveRate, meterRegistry);
+        this.usernames = new Field("username", expectedEntries, falsePositiveRate, meterRegistry);
+        this.addresses = new Field("blockchainAddress", expectedEntries, falsePositiveRate, meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedOnStartup() {
+        Thread seeder = new Thread(() -> {
+            try {
+                long loaded = catchUp(0);
+                ready = true;
+                log.info("注册查重过滤器构建完成，用户{}个，每个过滤器{}KB，估算误判率{}",
+                        loaded, emails.filter.memoryBytes() / 1024,
+                        String.format("%.4f", emails.filter.expectedFalsePositiveRate()));
+            } catch (Exception e) {
+                log.error("注册查重过滤器构建失败，注册时将始终查询数据库", e);
+            }
+        }, "user-identity-filter-seed");
+        seeder.setDaemon(true);
+        seeder.start();
+    }
+
+    /**
+     * 定期追赶其他实例注册的用户
+     */
+    @Scheduled(fixedDelayString = "${user.identity-filter.refresh-interval-ms:5000}")
+    public void refresh() {
+        if (!ready) {
+            return;
+        }
+        try {
+            catchUp(Math.max(0, maxSeenUserId - CATCH_UP_OVERLAP));
+        } catch (Exception e) {
+            log.warn("注册查重过滤器追赶失败", e);
+        }
+    }
+
+    private long catchUp(long afterId) {
+        long loaded = 0;
+        while (true) {
+            List<Object[]> rows = userRepository.findIdentityPage(afterId, PageRequest.of(0, SEED_PAGE_SIZE));
+            for (Object[] row : rows) {
+                afterId = (Long) row[0];
+                add(afterId, (String) row[1], (String) row[2], (String) row[3]);
+            }
+            loaded += rows.size();
+            if (rows.size() < SEED_PAGE_SIZE) {
+                return loaded;
+            }
+        }
+    }
+
+    /**
+     * 新用户写入数据库后加入过滤器
+     */
+    public void onUserCreated(User user) {
+        add(user.getUserId(), user.getEmail(), user.getUsername(), user.getBlockchainAddress());
+    }
+
+    private void add(Long userId, String email, String username, String address) {
+        if (email != null) {
+            emails.filter.add(normalizeEmail(email));
+        }
+        if (username != null) {
+            usernames.filter.add(username);
+        }
+        if (address != null) {
+            addresses.filter.add(address);
+        }
+        if (userId != null && userId > maxSeenUserId) {
+            maxSeenUserId = userId; // 仅追赶检查点，偶发的并发覆盖只会导致多读一段
+        }
+    }
+
+    /**
+     * 邮箱是否已注册：过滤器判定一定未注册时不查询数据库
+     * 邮箱按小写加入和查询，数据库排序规则不区分大小写时也不会漏判
+     */
+    public boolean isEmailRegistered(String email) {
+        return emails.exists(normalizeEmail(email), email,
+                value -> userRepository.findByEmail(value).isPresent(), ready);
+    }
+
+    public boolean isUsernameTaken(String username) {
+        return usernames.exists(username, username,
+                value -> userRepository.findByUsername(value).isPresent(), ready);
+    }
+
+    public boolean isAddressTaken(String address) {
+        return addresses.exists(address, address,
+                value -> userRepository.findByBlockchainAddress(value).isPresent(), ready);
+    }
+
+    private static String normalizeEmail(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+}
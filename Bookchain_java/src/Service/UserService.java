@@ -2,11 +2,14 @@ package com.bookchain.service;
 
 import com.bookchain.entity.User;
 import com.bookchain.repository.UserRepository;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import com.bookchain.utils.TimeOrderedIdGenerator;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import java.util.Locale;
 import java.util.Optional;
-import java.util.UUID;
 
 /**
  * 用户服务类，处理用户相关业务逻辑
@@ -15,34 +18,96 @@ import java.util.UUID;
 @Transactional
 public class UserService {
     private final UserRepository userRepository;
-    private final BCryptPasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher; // BCrypt在专用有界线程池中计算
+    private final TimeOrderedIdGenerator idGenerator; // 用户名和区块链地址均由时间有序ID生成，保证唯一
+    private final UserIdentityFilter identityFilter; // 注册查重预检，一定不存在时不查询数据库
 
-    public UserService(UserRepository userRepository, BCryptPasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, PasswordHasher passwordHasher,
+                       TimeOrderedIdGenerator idGenerator, UserIdentityFilter identityFilter) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHasher = passwordHasher;
+        this.idGenerator = idGenerator;
+        this.identityFilter = identityFilter;
     }
 
     /**
      * 创建新用户（注册）
+     * 不在事务中等待密码哈希，避免哈希排队期间占用数据库连接；邮箱唯一性最终由唯一约束保证
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public User createUser(String email, String password, String realName, String interests) {
-        // 校验邮箱唯一性
-        if (userRepository.findByEmail(email).isPresent()) {
+        if (email == null || email.isBlank()) {
+            throw new IllegalArgumentException("邮箱不能为空");
+        }
+        // 校验邮箱唯一性（布隆过滤器判定可能已注册时才查询数据库）
+        if (identityFilter.isEmailRegistered(email)) {
             throw new IllegalArgumentException("邮箱已被注册");
         }
-        // 生成系统唯一用户名（如 USER_20231001_ABC）
+        // 生成系统唯一用户名（如 USER_0A8KE7Z0G0M00）
         String username = generateSystemUsername();
+        String blockchainAddress = generateBlockchainAddress();
 
         // 创建用户实体并加密密码
         User user = new User();
         user.setUsername(username);
         user.setEmail(email);
-        user.setPassword(passwordEncoder.encode(password)); // BCrypt加密
+        user.setPassword(passwordHasher.encode(password)); // BCrypt加密，执行器饱和时抛出PasswordHashingBusyException
         user.setRealName(realName);
         user.setInterests(interests);
-        user.setBlockchainAddress(generateBlockchainAddress()); // 模拟生成区块链地址
+        user.setBlockchainAddress(blockchainAddress); // 模拟生成区块链地址
+
+        User saved;
+        try {
+            saved = userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            throw translateViolation(e);
+        }
+        identityFilter.onUserCreated(saved);
+        return saved;
+    }
 
-        return userRepository.save(user);
+    /**
+     * 按违反的约束给出提示：并发注册同一邮箱时预检都会通过，由邮箱唯一约束兜底；
+     * 生成的用户名/地址重复说明节点ID配置冲突，属服务端错误；其余违反（如字段超长）原样抛出
+     */
+    private static RuntimeException translateViolation(DataIntegrityViolationException e) {
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null) {
+                // 部分数据库报告的约束名带模式前缀或大写，按包含关系匹配
+                String constraint = violation.getConstraintName().toLowerCase(Locale.ROOT);
+                if (constraint.contains(User.UK_EMAIL)) {
+                    return new IllegalArgumentException("邮箱已被注册", e);
+                }
+                if (constraint.contains(User.UK_USERNAME) || constraint.contains(User.UK_BLOCKCHAIN_ADDRESS)) {
+                    return new IllegalStateException("生成的用户名或区块链地址重复，请检查各实例的节点ID配置", e);
+                }
+            }
+        }
+        return e;
+    }
+
+    /**
+     * 校验用户名和密码，成功返回用户；存储的哈希代价因子与当前配置不同时透明地重新哈希
+     * @throws IllegalArgumentException 用户名或密码错误
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public User authenticate(String username, String password) {
+        if (username == null || password == null) {
+            throw new IllegalArgumentException("用户名或密码错误");
+        }
+        User user = userRepository.findByUsername(username).orElse(null);
+        if (user == null) {
+            passwordHasher.simulateMatch(password);
+            throw new IllegalArgumentException("用户名或密码错误");
+        }
+        if (!passwordHasher.matches(password, user.getPassword())) {
+            throw new IllegalArgumentException("用户名或密码错误");
+        }
+        if (passwordHasher.needsRehash(user.getPassword())) {
+            user.setPassword(passwordHasher.encode(password));
+            user = userRepository.save(user);
+        }
+        return user;
     }
 
     /**
@@ -70,16 +135,24 @@ public class UserService {
     }
 
     /**
-     * 生成系统唯一用户名（示例：USER_随机UUID片段）
+     * 生成系统唯一用户名：USER_ + 13位Base32编码的时间有序ID
      */
     private String generateSystemUsername() {
-        return "USER_" + UUID.randomUUID().toString().toUpperCase().substring(0, 8);
+        String username;
+        do {
+            username = "USER_" + idGenerator.nextBase32();
+        } while (identityFilter.isUsernameTaken(username)); // 节点ID配置重复等情况下才可能冲突
+        return username;
     }
 
     /**
      * 模拟生成区块链地址（实际需对接区块链钱包）
      */
     private String generateBlockchainAddress() {
-        return "0x" + UUID.randomUUID().toString().substring(0, 38);
+        String address;
+        do {
+            address = idGenerator.nextAddress();
+        } while (identityFilter.isAddressTaken(address));
+        return address;
     }
 }
@@ -1,16 +1,22 @@
 package com.bookchain.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.hyperledger.fabric.gateway.*;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * 区块链配置类，初始化Hyperledger Fabric网关连接
  */
 @Configuration
+@EnableScheduling // 启用上链发件箱等后台定时任务
 public class BlockchainConfig {
 
     @Value("${fabric.gateway.organizations}")
@@ -28,8 +34,41 @@ public class BlockchainConfig {
     @Value("${fabric.gateway.channel.name}")
     private String channelName;
 
+    @Value("${fabric.gateway.chaincode.name:bookchain}")
+    private String chaincodeName;
+
+    // 网关连接池大小、单连接并发上限、获取连接超时时间
+    @Value("${fabric.gateway.pool.size:2}")
+    private int poolSize;
+
+    @Value("${fabric.gateway.pool.max-concurrent-per-connection:64}")
+    private int maxConcurrentPerConnection;
+
+    @Value("${fabric.gateway.pool.acquire-timeout-ms:5000}")
+    private long acquireTimeoutMillis;
+
     @Bean
-    public Gateway gateway() throws IOException {
+    public ChaincodeMetrics chaincodeMetrics(MeterRegistry meterRegistry) {
+        // 包装默认提交策略（等待本组织全部节点提交），在其回调点划分提交阶段
+        return new ChaincodeMetrics(DefaultCommitHandlers.MSPID_SCOPE_ALLFORTX, meterRegistry);
+    }
+
+    @Bean
+    public GatewayPool gatewayPool(ChaincodeMetrics chaincodeMetrics, MeterRegistry meterRegistry) throws IOException {
+        List<Gateway> gateways = new ArrayList<>(poolSize);
+        try {
+            for (int i = 0; i < poolSize; i++) {
+                gateways.add(createGateway(chaincodeMetrics));
+            }
+        } catch (IOException | RuntimeException e) {
+            gateways.forEach(Gateway::close);
+            throw e;
+        }
+        return new GatewayPool(gateways, channelName, chaincodeName,
+                maxConcurrentPerConnection, acquireTimeoutMillis, chaincodeMetrics, meterRegistry);
+    }
+
+    private Gateway createGateway(ChaincodeMetrics chaincodeMetrics) throws IOException {
         // 加载客户端证书和私钥
         byte[] certificate = Files.readAllBytes(Paths.get(credentialPath));
         byte[] privateKey = Files.readAllBytes(Paths.get(privateKeyPath));
@@ -40,6 +79,7 @@ public class BlockchainConfig {
                 .privateKey(new PrivateKey(new String(privateKey)))
                 .endpoint(endpoint)
                 .discovery(true) // 启用通道发现
+                .commitHandler(chaincodeMetrics) // 提交阶段计时
                 .build();
 
         // 创建网关连接
@@ -47,7 +87,7 @@ public class BlockchainConfig {
     }
 
     @Bean
-    public Network network(Gateway gateway) {
-        return gateway.getNetwork(channelName);
+    public Network network(GatewayPool gatewayPool) {
+        return gatewayPool.primaryNetwork();
     }
 }
@@ -0,0 +1,196 @@
+package com.bookchain.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.hyperledger.fabric.gateway.ContractException;
+import org.hyperledger.fabric.gateway.Network;
+import org.hyperledger.fabric.gateway.spi.CommitHandler;
+import org.hyperledger.fabric.gateway.spi.CommitHandlerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 链码调用指标：按链码函数记录调用耗时直方图、进行中调用数，提交交易另外拆分为
+ * 背书（endorse）、发送排序（order）、等待提交（commit）三个阶段
+ * 所有计时器在首次使用前按函数注册好，调用路径上只做一次映射查找，不分配标签
+ */
+public class ChaincodeMetrics implements CommitHandlerFactory {
+    // 链码中定义的全部函数，启动时预注册
+    private static final List<String> FUNCTIONS = List.of("createAsset", "createAssetsBatch", "transferAsset",
+            "readAsset", "queryAllAssets", "queryAssetsPage", "queryAssetHistory", "migrateTypeIndex");
+
+    /**
+     * 单个链码函数的全部指标
+     */
+    private static final class FunctionMeters {
+        final Timer submitSuccess;
+        final Timer submitFailure;
+        final Timer evaluateSuccess;
+        final Timer evaluateFailure;
+        final Timer endorse;
+        final Timer order;
+        final Timer commit;
+        final AtomicInteger inFlight = new AtomicInteger();
+
+        FunctionMeters(String function, MeterRegistry registry) {
+            submitSuccess = callTimer(function, "submit", "success", registry);
+            submitFailure = callTimer(function, "submit", "failure", registry);
+            evaluateSuccess = callTimer(function, "evaluate", "success", registry);
+            evaluateFailure = callTimer(function, "evaluate", "failure", registry);
+            endorse = phaseTimer(function, "endorse", registry);
+            order = phaseTimer(function, "order", registry);
+            commit = phaseTimer(function, "commit", registry);
+            Gauge.builder("fabric.chaincode.in_flight", inFlight, AtomicInteger::get)
+                    .description("正在进行的链码调用数")
+                    .tag("function", function)
+                    .register(registry);
+        }
+
+        private static Timer callTimer(String function, String kind, String outcome, MeterRegistry registry) {
+            return Timer.builder("fabric.chaincode.calls")
+                    .description("链码调用耗时（不含获取网关连接的等待）")
+                    .tags("function", function, "kind", kind, "outcome", outcome)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofSeconds(60))
+                    .register(registry);
+        }
+
+        private static Timer phaseTimer(String function, String phase, MeterRegistry registry) {
+            return Timer.builder("fabric.chaincode.submit.phase")
+                    .description("提交交易各阶段耗时")
+                    .tags("function", function, "phase", phase)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofSeconds(60))
+                    .register(registry);
+        }
+    }
+
+    /**
+     * 当前线程上正在进行的提交，供提交处理器回调时划分阶段；每个线程复用同一实例
+     */
+    private static final class SubmitPhase {
+        FunctionMeters meters;
+        long startNanos;
+        long listenNanos;
+    }
+
+    /**
+     * 被计时的调用
+     */
+    @FunctionalInterface
+    public interface Call<T> {
+        T call() throws Exception;
+    }
+
+    private final MeterRegistry registry;
+    private final Map<String, FunctionMeters> meters = new ConcurrentHashMap<>();
+    private final ThreadLocal<SubmitPhase> currentSubmit = ThreadLocal.withInitial(SubmitPhase::new);
+    private final CommitHandlerFactory delegate;
+
+    public ChaincodeMetrics(CommitHandlerFactory delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.registry = registry;
+        for (String function : FUNCTIONS) {
+            meters.put(function, new FunctionMeters(function, registry));
+        }
+    }
+
+    /**
+     * 计时一次提交交易（背书、排序并等待提交），阶段耗时由提交处理器回调记录
+     */
+    public <T> T recordSubmit(String function, Call<T> call) throws Exception {
+        FunctionMeters m = metersOf(function);
+        SubmitPhase phase = currentSubmit.get();
+        long start = System.nanoTime();
+        phase.meters = m;
+        phase.startNanos = start;
+        phase.listenNanos = 0;
+        m.inFlight.incrementAndGet();
+        try {
+            T result = call.call();
+            m.submitSuccess.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (Exception e) {
+            m.submitFailure.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        } finally {
+            m.inFlight.decrementAndGet();
+            phase.meters = null;
+        }
+    }
+
+    /**
+     * 计时一次查询（只向节点背书，不提交）
+     */
+    public <T> T recordEvaluate(String function, Call<T> call) throws Exception {
+        FunctionMeters m = metersOf(function);
+        long start = System.nanoTime();
+        m.inFlight.incrementAndGet();
+        try {
+            T result = call.call();
+            m.evaluateSuccess.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (Exception e) {
+            m.evaluateFailure.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        } finally {
+            m.inFlight.decrementAndGet();
+        }
+    }
+
+    private FunctionMeters metersOf(String function) {
+        FunctionMeters m = meters.get(function);
+        return m != null ? m : meters.computeIfAbsent(function, f -> new FunctionMeters(f, registry));
+    }
+
+    /**
+     * 网关在背书完成后、发送排序前创建提交处理器：开始监听即背书结束，
+     * 开始等待即已发送排序，等待返回即交易已提交。提交在调用线程上同步进行，阶段按线程关联到当前调用
+     */
+    @Override
+    public CommitHandler create(String transactionId, Network network) {
+        CommitHandler handler = delegate.create(transactionId, network);
+        SubmitPhase phase = currentSubmit.get();
+        FunctionMeters m = phase.meters;
+        if (m == null) {
+            return handler; // 未经recordSubmit的提交不划分阶段
+        }
+        return new CommitHandler() {
+            @Override
+            public void startListening() {
+                long now = System.nanoTime();
+                m.endorse.record(now - phase.startNanos, TimeUnit.NANOSECONDS);
+                phase.listenNanos = now;
+                handler.startListening();
+            }
+
+            @Override
+            public void waitForEvents(long timeout, TimeUnit timeUnit)
+                    throws ContractException, TimeoutException, InterruptedException {
+                long waitStart = System.nanoTime();
+                if (phase.listenNanos != 0) {
+                    m.order.record(waitStart - phase.listenNanos, TimeUnit.NANOSECONDS);
+                }
+                try {
+                    handler.waitForEvents(timeout, timeUnit);
+                } finally {
+                    m.commit.record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+                }
+            }
+
+            @Override
+            public void cancelListening() {
+                handler.cancelListening();
+            }
+        };
+    }
+}
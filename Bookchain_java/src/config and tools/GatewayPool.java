@@ -0,0 +1,164 @@
+package com.bookchain.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.hyperledger.fabric.gateway.Contract;
+import org.hyperledger.fabric.gateway.Gateway;
+import org.hyperledger.fabric.gateway.Network;
+
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fabric网关连接池，持有多个网关连接及其长期复用的合约句柄
+ * 每次调用选取当前占用最少的连接，总并发受许可数限制，超时未获取到连接时快速失败
+ */
+public class GatewayPool implements AutoCloseable {
+
+    /**
+     * 使用合约句柄执行的调用
+     */
+    @FunctionalInterface
+    public interface ContractCall<T> {
+        T apply(Contract contract) throws Exception;
+    }
+
+    private final List<Gateway> gateways;
+    private final Network[] networks;
+    private final Contract[] contracts; // 合约句柄线程安全，初始化后全程复用
+    private final AtomicInteger[] inUse;
+    private final AtomicInteger nextIndex = new AtomicInteger();
+    private final Semaphore permits;
+    private final int capacity;
+    private final long acquireTimeoutNanos;
+
+    private final ChaincodeMetrics chaincodeMetrics;
+    private final Timer waitTimer;
+    private final Counter timeoutCounter;
+    private final AtomicLong totalInUse = new AtomicLong();
+
+    public GatewayPool(List<Gateway> gateways, String channelName, String chaincodeName,
+                       int maxConcurrentPerConnection, long acquireTimeoutMillis, ChaincodeMetrics chaincodeMetrics,
+                       MeterRegistry meterRegistry) {
+        if (gateways.isEmpty() || maxConcurrentPerConnection <= 0) {
+            throw new IllegalArgumentException("网关连接池参数无效");
+        }
+        this.gateways = List.copyOf(gateways);
+        int size = this.gateways.size();
+        this.networks = new Network[size];
+        this.contracts = new Contract[size];
+        this.inUse = new AtomicInteger[size];
+        for (int i = 0; i < size; i++) {
+            networks[i] = this.gateways.get(i).getNetwork(channelName);
+            contracts[i] = networks[i].getContract(chaincodeName);
+            inUse[i] = new AtomicInteger();
+        }
+        this.capacity = size * maxConcurrentPerConnection;
+        this.permits = new Semaphore(capacity);
+        this.acquireTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(acquireTimeoutMillis);
+        this.chaincodeMetrics = chaincodeMetrics;
+
+        // 连接池利用率与等待时间指标
+        this.waitTimer = Timer.builder("fabric.gateway.pool.wait")
+                .description("获取网关连接的等待时间")
+                .register(meterRegistry);
+        this.timeoutCounter = Counter.builder("fabric.gateway.pool.timeouts")
+                .description("获取网关连接超时次数")
+                .register(meterRegistry);
+        Gauge.builder("fabric.gateway.pool.in_use", totalInUse, AtomicLong::get)
+                .description("正在使用的网关连接许可数")
+                .register(meterRegistry);
+        Gauge.builder("fabric.gateway.pool.utilization", this, pool -> (double) pool.totalInUse.get() / pool.capacity)
+                .description("网关连接池利用率")
+                .register(meterRegistry);
+        Gauge.builder("fabric.gateway.pool.size", this.gateways, List::size)
+                .description("网关连接数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 借用一个合约句柄执行调用，调用结束后自动归还
+     */
+    public <T> T withContract(ContractCall<T> call) throws Exception {
+        long start = System.nanoTime();
+        if (!permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+            timeoutCounter.increment();
+            throw new IllegalStateException("网关连接池繁忙，请稍后重试");
+        }
+        waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        int index = leastLoaded();
+        inUse[index].incrementAndGet();
+        totalInUse.incrementAndGet();
+        try {
+            return call.apply(contracts[index]);
+        } finally {
+            inUse[index].decrementAndGet();
+            totalInUse.decrementAndGet();
+            permits.release();
+        }
+    }
+
+    /**
+     * 借用合约句柄提交交易，按链码函数记录耗时及背书/排序/提交阶段
+     */
+    public <T> T submit(String function, ContractCall<T> call) throws Exception {
+        return withContract(contract -> chaincodeMetrics.recordSubmit(function, () -> call.apply(contract)));
+    }
+
+    /**
+     * 借用合约句柄执行查询，按链码函数记录耗时
+     */
+    public <T> T evaluate(String function, ContractCall<T> call) throws Exception {
+        return withContract(contract -> chaincodeMetrics.recordEvaluate(function, () -> call.apply(contract)));
+    }
+
+    /**
+     * 从轮询起点开始选取占用最少的连接，占用相同时按轮询分散
+     */
+    private int leastLoaded() {
+        int size = contracts.length;
+        int start = Math.floorMod(nextIndex.getAndIncrement(), size);
+        int best = start;
+        int bestLoad = inUse[start].get();
+        for (int i = 1; i < size && bestLoad > 0; i++) {
+            int candidate = (start + i) % size;
+            int load = inUse[candidate].get();
+            if (load < bestLoad) {
+                best = candidate;
+                bestLoad = load;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 主连接的通道网络，用于注册区块/合约事件监听
+     */
+    public Network primaryNetwork() {
+        return networks[0];
+    }
+
+    /**
+     * 主连接的合约句柄，用于注册合约事件监听
+     */
+    public Contract primaryContract() {
+        return contracts[0];
+    }
+
+    public int size() {
+        return gateways.size();
+    }
+
+    @Override
+    public void close() {
+        for (Gateway gateway : gateways) {
+            gateway.close();
+        }
+    }
+}
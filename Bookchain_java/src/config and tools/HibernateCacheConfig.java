@@ -0,0 +1,85 @@
+package com.bookchain.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hibernate二级缓存配置：以Caffeine（JCache）为缓存实现，缓存Book/User实体、用户名自然键及查询结果
+ * 各缓存区域容量有界、写入后过期，并注册命中率等指标
+ */
+@Configuration
+public class HibernateCacheConfig {
+    // 缓存区域名，与实体上的@Cache/@NaturalIdCache注解一致
+    public static final String BOOK_REGION = "book";
+    public static final String USER_REGION = "user";
+    public static final String USER_NATURAL_ID_REGION = "user-natural-id";
+    private static final String QUERY_RESULTS_REGION = "default-query-results-region";
+    private static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    @Value("${hibernate.cache.book.max-size:100000}")
+    private long bookMaxSize;
+
+    @Value("${hibernate.cache.user.max-size:50000}")
+    private long userMaxSize;
+
+    @Value("${hibernate.cache.query.max-size:10000}")
+    private long queryMaxSize;
+
+    @Value("${hibernate.cache.ttl-seconds:3600}")
+    private long ttlSeconds;
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(MeterRegistry meterRegistry) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager();
+        JCacheMetrics.monitor(meterRegistry, createRegion(cacheManager, BOOK_REGION, bookMaxSize, ttlSeconds));
+        JCacheMetrics.monitor(meterRegistry, createRegion(cacheManager, USER_REGION, userMaxSize, ttlSeconds));
+        JCacheMetrics.monitor(meterRegistry, createRegion(cacheManager, USER_NATURAL_ID_REGION, userMaxSize, ttlSeconds));
+        JCacheMetrics.monitor(meterRegistry, createRegion(cacheManager, QUERY_RESULTS_REGION, queryMaxSize, ttlSeconds));
+        // 更新时间戳区域用于判定查询缓存是否过期，条目数等于表数，不能被淘汰或过期
+        createRegion(cacheManager, UPDATE_TIMESTAMPS_REGION, -1, -1);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            // 区域均已预先创建并设置容量，未声明的区域视为配置错误
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    /**
+     * 创建有界缓存区域，maxSize或ttlSeconds为负时不限制
+     */
+    private static Cache<Object, Object> createRegion(CacheManager cacheManager, String name,
+                                                      long maxSize, long ttlSeconds) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        if (maxSize >= 0) {
+            configuration.setMaximumSize(OptionalLong.of(maxSize));
+        }
+        if (ttlSeconds >= 0) {
+            configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(ttlSeconds)));
+        }
+        configuration.setStatisticsEnabled(true);
+        return cacheManager.createCache(name, configuration);
+    }
+}
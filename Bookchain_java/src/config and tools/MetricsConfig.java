@@ -0,0 +1,42 @@
+package com.bookchain.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.actuate.autoconfigure.metrics.MeterRegistryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+/**
+ * 指标配置：统一的应用标签，以及仓库方法计时
+ * 指标以Prometheus格式导出（micrometer-registry-prometheus），由/actuator/prometheus端点抓取，
+ * 需在management.endpoints.web.exposure.include中开放prometheus端点
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterRegistryCustomizer<MeterRegistry> commonTags() {
+        return registry -> registry.config().commonTags("application", "bookchain");
+    }
+
+    /**
+     * 在仓库代理创建前为其加入计时拦截器（静态方法，避免提前初始化本配置类）
+     */
+    @Bean
+    public static BeanPostProcessor repositoryMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, information) -> proxyFactory.addAdvice(new RepositoryMetricsInterceptor(
+                                    information.getRepositoryInterface(), meterRegistry))));
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,74 @@
+package com.bookchain.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 仓库方法计时拦截器：按仓库接口和方法名记录调用耗时
+ * 每个方法的计时器在首次调用时注册并按Method缓存，之后的调用只做一次映射查找，不分配标签；
+ * 返回Stream的方法只计到查询开始返回，消费耗时计入调用方
+ */
+class RepositoryMetricsInterceptor implements MethodInterceptor {
+
+    /**
+     * 单个仓库方法的成功/失败计时器
+     */
+    private record MethodTimers(Timer success, Timer failure) {}
+
+    private final String repository;
+    private final ObjectProvider<MeterRegistry> meterRegistry; // 仓库先于指标注册表创建，首次调用时再取
+    private final Map<Method, MethodTimers> timers = new ConcurrentHashMap<>();
+
+    RepositoryMetricsInterceptor(Class<?> repositoryInterface, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.repository = repositoryInterface.getSimpleName();
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Method method = invocation.getMethod();
+        MethodTimers m = timers.get(method);
+        if (m == null) {
+            m = timers.computeIfAbsent(method, this::register);
+        }
+        long start = System.nanoTime();
+        try {
+            Object result = invocation.proceed();
+            m.success().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (Throwable t) {
+            m.failure().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw t;
+        }
+    }
+
+    private MethodTimers register(Method method) {
+        MeterRegistry registry = meterRegistry.getObject();
+        // 重载方法同名，共用同一组计时器
+        return new MethodTimers(
+                timer(method.getName(), "success", registry),
+                timer(method.getName(), "failure", registry));
+    }
+
+    /**
+     * 同名计时器的各个outcome必须使用相同的直方图配置，否则导出的bucket序列不一致
+     */
+    private Timer timer(String method, String outcome, MeterRegistry registry) {
+        return Timer.builder("bookchain.repository.invocations")
+                .description("仓库方法调用耗时")
+                .tags("repository", repository, "method", method, "outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(registry);
+    }
+}
@@ -0,0 +1,28 @@
+package com.bookchain.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * 虚拟线程模式配置，由spring.threads.virtual.enabled=true开启
+ * 开启后Tomcat请求处理、@Async与定时任务由Spring Boot切换到虚拟线程执行，
+ * BlockchainService的批量提交和批量查询也改用虚拟线程；本配置另外启用虚拟线程钉住诊断
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    // 虚拟线程被钉住（如在synchronized块内阻塞）超过该时长时记录
+    @Value("${bookchain.virtual-threads.pinning-threshold-ms:20}")
+    private long pinningThresholdMillis;
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor(MeterRegistry meterRegistry) {
+        return new VirtualThreadPinningMonitor(Duration.ofMillis(pinningThresholdMillis), meterRegistry);
+    }
+}
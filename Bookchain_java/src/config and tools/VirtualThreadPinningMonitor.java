@@ -0,0 +1,78 @@
+package com.bookchain.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 虚拟线程钉住诊断：通过JFR事件流订阅jdk.VirtualThreadPinned，
+ * 超过阈值的钉住记录调用栈并计数，用于发现请求路径上阻塞在synchronized块或本地方法中的代码
+ */
+public class VirtualThreadPinningMonitor implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 12;
+
+    private final Duration threshold;
+    private final Counter pinnedCounter;
+    private final Timer pinnedTimer;
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(Duration threshold, MeterRegistry meterRegistry) {
+        this.threshold = threshold;
+        this.pinnedCounter = Counter.builder("jvm.virtual_threads.pinned")
+                .description("超过阈值的虚拟线程钉住次数")
+                .register(meterRegistry);
+        this.pinnedTimer = Timer.builder("jvm.virtual_threads.pinned.duration")
+                .description("虚拟线程钉住时长")
+                .register(meterRegistry);
+    }
+
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+        log.info("虚拟线程钉住诊断已启用，阈值{}ms", threshold.toMillis());
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinnedCounter.increment();
+        pinnedTimer.record(event.getDuration());
+        if (log.isWarnEnabled()) {
+            log.warn("虚拟线程被钉住{}ms，线程{}\n{}", event.getDuration().toMillis(),
+                    event.getThread() != null ? event.getThread().getJavaName() : "?", format(event.getStackTrace()));
+        }
+    }
+
+    private static String format(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "\t(无调用栈)";
+        }
+        StringBuilder text = new StringBuilder();
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        for (int i = 0; i < Math.min(frames.size(), LOGGED_FRAMES); i++) {
+            RecordedFrame frame = frames.get(i);
+            text.append("\tat ").append(frame.getMethod().getType().getName())
+                    .append('.').append(frame.getMethod().getName())
+                    .append(':').append(frame.getLineNumber()).append('\n');
+        }
+        return text.toString();
+    }
+
+    @Override
+    public void close() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+}
@@ -1,42 +1,114 @@
 package com.bookchain.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
+import io.jsonwebtoken.impl.TextCodec;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.concurrent.TimeUnit;
 
 /**
  * JWT令牌工具类，处理令牌生成、解析和验证
+ * 签名密钥和解析器只构建一次；验证一次解析即得到全部所需声明，
+ * 验证通过的令牌按摘要缓存至其过期时间，重复请求不再重复验签
  */
 @Component
 public class JwtTokenUtil {
     private static final String SECRET_KEY = "bookchain-secret-key-32bytes-required-for-hs512"; // 建议从配置文件读取
     private static final int TOKEN_EXPIRATION = 86400000; // 令牌有效期（24小时，单位：毫秒）
 
+    /**
+     * 验证通过的令牌中本系统使用的声明
+     */
+    public record VerifiedToken(String username, Date expiration) {
+        boolean isExpired() {
+            return expiration != null && expiration.before(new Date());
+        }
+    }
+
+    // 与setSigningKey(String)相同的Base64解码方式，保证已签发令牌仍可验证
+    private final Key signingKey = new SecretKeySpec(TextCodec.BASE64.decode(SECRET_KEY),
+            SignatureAlgorithm.HS512.getJcaName());
+    private final JwtParser parser = Jwts.parser().setSigningKey(signingKey);
+    private final Cache<ByteBuffer, VerifiedToken> verifiedTokens;
+
+    public JwtTokenUtil(@Value("${jwt.verified-cache.max-size:100000}") long verifiedCacheMaxSize,
+                        MeterRegistry meterRegistry) {
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheMaxSize)
+                .expireAfter(new Expiry<ByteBuffer, VerifiedToken>() {
+                    // 缓存条目在令牌的exp时刻过期
+                    @Override
+                    public long expireAfterCreate(ByteBuffer key, VerifiedToken value, long currentTime) {
+                        if (value.expiration() == null) {
+                            return TimeUnit.MILLISECONDS.toNanos(TOKEN_EXPIRATION);
+                        }
+                        long remaining = value.expiration().getTime() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remaining));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(ByteBuffer key, VerifiedToken value,
+                                                  long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(ByteBuffer key, VerifiedToken value,
+                                                long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "jwtVerified");
+    }
+
     /**
      * 从令牌中提取用户名
      */
     public String getUsernameFromToken(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verify(token).username();
     }
 
     /**
      * 从令牌中提取过期时间
      */
     public Date getExpirationDateFromToken(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        return verify(token).expiration();
     }
 
     /**
-     * 通用claim提取方法
+     * 验证令牌签名并返回声明；命中验证缓存时不再解析和验签
      */
-    private <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = parseClaims(token);
-        return claimsResolver.apply(claims);
+    public VerifiedToken verify(String token) {
+        if (token == null || token.isEmpty()) {
+            throw new IllegalArgumentException("JWT令牌参数缺失");
+        }
+        ByteBuffer digest = digest(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null) {
+            return cached;
+        }
+        Claims claims = parseClaims(token); // 解析失败不缓存
+        VerifiedToken verified = new VerifiedToken(claims.getSubject(), claims.getExpiration());
+        verifiedTokens.put(digest, verified);
+        return verified;
     }
 
     /**
@@ -44,10 +116,7 @@ public class JwtTokenUtil {
      */
     private Claims parseClaims(String token) {
         try {
-            return Jwts.parser()
-                    .setSigningKey(SECRET_KEY)
-                    .parseClaimsJws(token)
-                    .getBody();
+            return parser.parseClaimsJws(token).getBody();
         } catch (MalformedJwtException e) {
             throw new IllegalArgumentException("无效的JWT令牌", e);
         } catch (ExpiredJwtException e) {
@@ -60,19 +129,23 @@ public class JwtTokenUtil {
     }
 
     /**
-     * 验证令牌是否有效
+     * 令牌的SHA-256摘要，作为验证缓存的键（不在内存中长期保留令牌原文）
      */
-    public boolean validateToken(String token, UserDetails userDetails) {
-        final String username = getUsernameFromToken(token);
-        return username.equals(userDetails.getUsername()) && !isTokenExpired(token);
+    private static ByteBuffer digest(String token) {
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("JVM不支持SHA-256", e);
+        }
     }
 
     /**
-     * 检查令牌是否过期
+     * 验证令牌是否有效（单次验证同时得到用户名和过期时间）
      */
-    private boolean isTokenExpired(String token) {
-        final Date expiration = getExpirationDateFromToken(token);
-        return expiration.before(new Date());
+    public boolean validateToken(String token, UserDetails userDetails) {
+        final VerifiedToken verified = verify(token);
+        return verified.username().equals(userDetails.getUsername()) && !verified.isExpired();
     }
 
     /**
@@ -92,7 +165,7 @@ public class JwtTokenUtil {
                 .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + TOKEN_EXPIRATION))
-                .signWith(SignatureAlgorithm.HS512, SECRET_KEY)
+                .signWith(SignatureAlgorithm.HS512, signingKey)
                 .compact();
     }
 }
@@ -0,0 +1,167 @@
+package com.bookchain.utils;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 时间有序的64位唯一ID生成器（Snowflake布局）：41位毫秒时间戳 | 10位节点ID | 12位序号
+ * 无锁（单个CAS），同一节点生成的ID严格递增；同一毫秒序号用尽或时钟回拨时借用后续毫秒，不阻塞也不重复
+ * 只要同时运行的实例节点ID互不相同，ID全局唯一。时间有序的ID使B树索引和链上键范围的插入集中在尾部
+ * 节点ID取bookchain.id.node-id；未配置时从“名称-序号”形式的主机名（如StatefulSet的Pod名）取序号，
+ * 仍无法确定且声明了多实例（bookchain.id.instances大于1）时启动失败
+ */
+@Component
+public class TimeOrderedIdGenerator {
+    // 自定义纪元 2024-01-01T00:00:00Z，41位毫秒时间戳可用约69年
+    static final long EPOCH_MILLIS = 1704067200000L;
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    // Crockford Base32（去除I、L、O、U），按字符顺序排列，定长编码的字典序与数值顺序一致
+    private static final byte[] BASE32 = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    // 64位按5位一组编码为13个字符
+    public static final int BASE32_LENGTH = 13;
+
+    private final long nodeBits;
+    // 最近一次分配的（时间戳 << 12 | 序号），序号溢出时自然进位到时间戳
+    private final AtomicLong state;
+
+    @Autowired
+    public TimeOrderedIdGenerator(@Value("${bookchain.id.node-id:-1}") int nodeId,
+                                  @Value("${bookchain.id.instances:1}") int instances) {
+        this(resolveNodeId(nodeId, instances, System.getenv("HOSTNAME")));
+    }
+
+    public TimeOrderedIdGenerator(int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("节点ID需在0-" + MAX_NODE_ID + "之间");
+        }
+        this.nodeBits = (long) nodeId << SEQUENCE_BITS;
+        this.state = new AtomicLong((System.currentTimeMillis() - EPOCH_MILLIS) << SEQUENCE_BITS);
+    }
+
+    /**
+     * 确定本实例的节点ID：显式配置（非负）优先，其次取主机名末尾的序号；
+     * 都没有时只允许单实例部署使用节点0，多实例同用节点0会在同一毫秒生成重复ID
+     */
+    static int resolveNodeId(int configured, int instances, String hostname) {
+        if (configured >= 0) {
+            return configured;
+        }
+        if (hostname != null) {
+            int dash = hostname.lastIndexOf('-');
+            String ordinal = hostname.substring(dash + 1);
+            if (dash >= 0 && !ordinal.isEmpty() && ordinal.length() <= 4 && ordinal.chars().allMatch(Character::isDigit)
+                    && Integer.parseInt(ordinal) <= MAX_NODE_ID) {
+                return Integer.parseInt(ordinal);
+            }
+        }
+        if (instances > 1) {
+            throw new IllegalStateException("多实例部署（bookchain.id.instances=" + instances
+                    + "）须为每个实例配置不同的bookchain.id.node-id，或使用“名称-序号”形式的主机名");
+        }
+        return 0;
+    }
+
+    /**
+     * 生成下一个ID
+     */
+    public long nextId() {
+        long now = (System.currentTimeMillis() - EPOCH_MILLIS) << SEQUENCE_BITS;
+        while (true) {
+            long last = state.get();
+            // 进入新的毫秒从序号0开始；否则（同一毫秒或时钟回拨）在上次基础上加一
+            long next = now > last ? now : last + 1;
+            if (state.compareAndSet(last, next)) {
+                return (next >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS) | nodeBits | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    /**
+     * 下一个ID的13位Crockford Base32编码（定长，字典序即生成顺序），用于用户名、资产ID等
+     */
+    public String nextBase32() {
+        return toBase32(nextId());
+    }
+
+    /**
+     * 模拟区块链地址："0x" + 40位小写十六进制，前16位为ID（唯一且时间有序），后24位随机
+     */
+    public String nextAddress() {
+        long id = nextId();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        byte[] chars = new byte[42];
+        chars[0] = '0';
+        chars[1] = 'x';
+        writeHex(id, 16, chars, 2);
+        writeHex(random.nextLong(), 16, chars, 18);
+        writeHex(random.nextInt(), 8, chars, 34);
+        return new String(chars, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * 定长13位Crockford Base32编码
+     */
+    public static String toBase32(long id) {
+        byte[] chars = new byte[BASE32_LENGTH];
+        chars[0] = BASE32[(int) (id >>> 60)]; // 首字符只承载最高4位
+        for (int i = BASE32_LENGTH - 1; i > 0; i--) {
+            chars[i] = BASE32[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * 解码toBase32的结果
+     */
+    public static long fromBase32(String text) {
+        if (text.length() != BASE32_LENGTH) {
+            throw new IllegalArgumentException("ID编码长度应为" + BASE32_LENGTH);
+        }
+        long id = 0;
+        for (int i = 0; i < BASE32_LENGTH; i++) {
+            int digit = indexOf(text.charAt(i));
+            if (digit < 0 || (i == 0 && digit > 15)) {
+                throw new IllegalArgumentException("无效的ID编码：" + text);
+            }
+            id = (id << 5) | digit;
+        }
+        return id;
+    }
+
+    /**
+     * ID中的生成时间（毫秒时间戳）
+     */
+    public static long timestampOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS;
+    }
+
+    private static int indexOf(char c) {
+        for (int i = 0; i < BASE32.length; i++) {
+            if (BASE32[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 将value的低digits个十六进制位写入chars[offset, offset + digits)
+     */
+    private static void writeHex(long value, int digits, byte[] chars, int offset) {
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            chars[i] = HEX[(int) (value & 15)];
+            value >>>= 4;
+        }
+    }
+}
@@ -2,6 +2,8 @@
     package com.bookchain.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.io.Serializable;
 import java.util.Date;
 
@@ -10,12 +12,19 @@ import java.util.Date;
      */
     @Entity
     @Table(name = "bc_book")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "book") // 二级缓存，详情查询直接命中
     public class Book implements Serializable {
         private static final long serialVersionUID = 1L;
 
-        // 书籍唯一标识，主键，使用自增长策略
+        // 上链状态：等待上链、已上链确认、上链失败
+        public static final String CHAIN_STATUS_PENDING = "PENDING";
+        public static final String CHAIN_STATUS_CONFIRMED = "CONFIRMED";
+        public static final String CHAIN_STATUS_FAILED = "FAILED";
+
+        // 书籍唯一标识，主键，使用序列并按段预分配（自增长主键需逐条插入取回ID，无法批量插入）
         @Id
-        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bc_book_seq")
+        @SequenceGenerator(name = "bc_book_seq", sequenceName = "bc_book_seq", allocationSize = 100)
         @Column(name = "book_id")
         private Long bookId;
 
@@ -43,10 +52,18 @@ import java.util.Date;
         @Column(name = "blockchain_tx_hash", length = 64)
         private String blockchainTxHash;
 
+        // 上链状态，上传后先为PENDING，由发件箱调度器上链成功后置为CONFIRMED
+        @Column(name = "chain_status", length = 16)
+        private String chainStatus;
+
         // 书籍上传时间
         @Column(name = "upload_time", nullable = false)
         private Date uploadTime = new Date();
 
+        // 最后修改时间，插入及每次更新时由回调刷新，供检索索引等派生数据按时间追赶修改
+        @Column(name = "update_time")
+        private Date updateTime;
+
         // 关联用户，多本书籍对应一个用户，即书籍所有者
         @ManyToOne(fetch = FetchType.LAZY)
         @JoinColumn(name = "owner_id")
@@ -109,6 +126,14 @@ import java.util.Date;
             this.blockchainTxHash = blockchainTxHash;
         }
 
+        public String getChainStatus() {
+            return chainStatus;
+        }
+
+        public void setChainStatus(String chainStatus) {
+            this.chainStatus = chainStatus;
+        }
+
         public Date getUploadTime() {
             return uploadTime;
         }
@@ -124,5 +149,19 @@ import java.util.Date;
         public void setOwner(User owner) {
             this.owner = owner;
         }
+
+        public Date getUpdateTime() {
+            return updateTime;
+        }
+
+        public void setUpdateTime(Date updateTime) {
+            this.updateTime = updateTime;
+        }
+
+        @PrePersist
+        @PreUpdate
+        void touchUpdateTime() {
+            updateTime = new Date();
+        }
     }
 
@@ -0,0 +1,59 @@
+package com.bookchain.entity;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 区块监听检查点实体类，记录各监听器已处理到的最新区块号，重启后从此处继续回放
+ */
+@Entity
+@Table(name = "bc_chain_checkpoint")
+public class ChainCheckpoint implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    // 监听器名称，主键
+    @Id
+    @Column(name = "listener_name", length = 64)
+    private String listenerName;
+
+    // 已处理完成的最新区块号，-1表示尚未处理任何区块
+    @Column(name = "block_number", nullable = false)
+    private long blockNumber = -1;
+
+    // 最近更新时间
+    @Column(name = "update_time", nullable = false)
+    private Date updateTime = new Date();
+
+    public ChainCheckpoint() {
+    }
+
+    public ChainCheckpoint(String listenerName) {
+        this.listenerName = listenerName;
+    }
+
+    // Getter和Setter方法
+    public String getListenerName() {
+        return listenerName;
+    }
+
+    public void setListenerName(String listenerName) {
+        this.listenerName = listenerName;
+    }
+
+    public long getBlockNumber() {
+        return blockNumber;
+    }
+
+    public void setBlockNumber(long blockNumber) {
+        this.blockNumber = blockNumber;
+    }
+
+    public Date getUpdateTime() {
+        return updateTime;
+    }
+
+    public void setUpdateTime(Date updateTime) {
+        this.updateTime = updateTime;
+    }
+}
@@ -0,0 +1,146 @@
+package com.bookchain.entity;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 上链发件箱实体类，与书籍在同一数据库事务中写入，由后台调度器异步提交到区块链
+ */
+@Entity
+@Table(name = "bc_chain_outbox", indexes = {
+        @Index(name = "idx_outbox_status", columnList = "status, outbox_id")
+})
+public class ChainOutbox implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    // 发件箱状态：待处理、处理中、已完成、已失败（超过最大重试次数）
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_PROCESSING = "PROCESSING";
+    public static final String STATUS_DONE = "DONE";
+    public static final String STATUS_FAILED = "FAILED";
+
+    // 发件箱记录唯一标识，主键，使用序列并按段预分配，与书籍一同批量插入
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bc_chain_outbox_seq")
+    @SequenceGenerator(name = "bc_chain_outbox_seq", sequenceName = "bc_chain_outbox_seq", allocationSize = 100)
+    @Column(name = "outbox_id")
+    private Long outboxId;
+
+    // 关联的书籍ID（即链上资产ID）
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+
+    // 上链时的所有者区块链地址
+    @Column(name = "owner_address", length = 64, nullable = false)
+    private String ownerAddress;
+
+    // 链上资产类型：NORMAL或BLIND_BOX
+    @Column(name = "asset_type", length = 16, nullable = false)
+    private String assetType;
+
+    // 处理状态
+    @Column(name = "status", length = 16, nullable = false)
+    private String status = STATUS_PENDING;
+
+    // 已尝试上链次数
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    // 下次允许尝试上链的时间，失败后按指数退避推迟；为空表示立即可处理
+    @Column(name = "next_attempt_time")
+    private Date nextAttemptTime;
+
+    // 最近一次失败原因
+    @Column(name = "last_error", length = 512)
+    private String lastError;
+
+    // 创建时间
+    @Column(name = "create_time", nullable = false)
+    private Date createTime = new Date();
+
+    // 最近更新时间
+    @Column(name = "update_time", nullable = false)
+    private Date updateTime = new Date();
+
+    // Getter和Setter方法
+    public Long getOutboxId() {
+        return outboxId;
+    }
+
+    public void setOutboxId(Long outboxId) {
+        this.outboxId = outboxId;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(Long bookId) {
+        this.bookId = bookId;
+    }
+
+    public String getOwnerAddress() {
+        return ownerAddress;
+    }
+
+    public void setOwnerAddress(String ownerAddress) {
+        this.ownerAddress = ownerAddress;
+    }
+
+    public String getAssetType() {
+        return assetType;
+    }
+
+    public void setAssetType(String assetType) {
+        this.assetType = assetType;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public Date getNextAttemptTime() {
+        return nextAttemptTime;
+    }
+
+    public void setNextAttemptTime(Date nextAttemptTime) {
+        this.nextAttemptTime = nextAttemptTime;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public Date getCreateTime() {
+        return createTime;
+    }
+
+    public void setCreateTime(Date createTime) {
+        this.createTime = createTime;
+    }
+
+    public Date getUpdateTime() {
+        return updateTime;
+    }
+
+    public void setUpdateTime(Date updateTime) {
+        this.updateTime = updateTime;
+    }
+}
@@ -8,7 +8,16 @@ import java.util.Date;
  * 交易记录实体类，用于记录书籍在平台上的交易信息
  */
 @Entity
-@Table(name = "bc_transaction")
+@Table(name = "bc_transaction", uniqueConstraints = {
+        // 同一笔链上交易可包含多本书籍（批量创建），按交易哈希+书籍唯一，保证区块回放幂等
+        // 该唯一索引以交易哈希为最左列，同时承担按交易哈希的查询
+        @UniqueConstraint(name = "uk_tx_hash_book", columnNames = {"blockchain_tx_hash", "book_id"})
+}, indexes = {
+        // 用户交易历史（发起方/接收方）与按类型过滤的查询索引
+        @Index(name = "idx_tx_sender", columnList = "sender_user_id"),
+        @Index(name = "idx_tx_receiver", columnList = "receiver_user_id"),
+        @Index(name = "idx_tx_type", columnList = "transaction_type")
+})
 public class Transaction implements Serializable {
     private static final long serialVersionUID = 1L;
 
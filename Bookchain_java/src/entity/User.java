@@ -2,6 +2,10 @@ package com.bookchain.entity;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
@@ -11,10 +15,21 @@ import java.util.List;
  * 包含用户基本信息、拥有的书籍列表、兴趣标签等
  */
 @Entity
-@Table(name = "bc_user")
+@Table(name = "bc_user", uniqueConstraints = { // 约束显式命名，违反时可据约束名给出准确提示
+        @UniqueConstraint(name = User.UK_USERNAME, columnNames = "username"),
+        @UniqueConstraint(name = User.UK_EMAIL, columnNames = "email"),
+        @UniqueConstraint(name = User.UK_BLOCKCHAIN_ADDRESS, columnNames = "blockchain_address")
+})
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user") // 二级缓存
+@NaturalIdCache(region = "user-natural-id") // 用户名 -> 用户ID 缓存，按用户名查询不访问数据库
 public class User implements Serializable {
     private static final long serialVersionUID = 1L; // 序列化版本号
 
+    // 唯一约束名
+    public static final String UK_USERNAME = "uk_user_username";
+    public static final String UK_EMAIL = "uk_user_email";
+    public static final String UK_BLOCKCHAIN_ADDRESS = "uk_user_blockchain_address";
+
     // 主键：用户ID（自动生成）
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -23,12 +38,13 @@ public class User implements Serializable {
 
     // 唯一用户名（系统自动生成的编号，如USER_20231001）
     @NotBlank(message = "用户名不能为空")
-    @Column(name = "username", unique = true, nullable = false, length = 32)
+    @NaturalId // 注册时生成后不再变化
+    @Column(name = "username", nullable = false, length = 32)
     private String username;
 
     // 电子邮箱（用于注册和找回密码）
     @NotBlank(message = "邮箱不能为空")
-    @Column(name = "email", unique = true, nullable = false, length = 128)
+    @Column(name = "email", nullable = false, length = 128)
     private String email;
 
     // 加密后的登录密码
@@ -49,7 +65,7 @@ public class User implements Serializable {
     private List<Book> ownedBooks = new ArrayList<>();
 
     // 区块链地址（用于资产所有权标识）
-    @Column(name = "blockchain_address", unique = true, length = 64)
+    @Column(name = "blockchain_address", length = 64)
     private String blockchainAddress;
 
     // 创建时间
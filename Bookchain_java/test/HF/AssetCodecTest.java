@@ -0,0 +1,63 @@
+package org.bookchain;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 资产状态编解码：二进制往返、旧版JSON兼容（含缺少timestamp的早期状态）
+ */
+class AssetCodecTest {
+
+    @Test
+    void binaryRoundTrip() {
+        byte[] state = AssetCodec.encode("A1", "0xowner", AssetCodec.ASSET_TYPE_BLIND_BOX, "2024-01-01T00:00:00Z");
+
+        AssetCodec.Asset asset = AssetCodec.decode(state);
+
+        assertTrue(AssetCodec.isBinary(state));
+        assertEquals("A1", asset.assetId);
+        assertEquals("0xowner", asset.owner);
+        assertEquals(AssetCodec.ASSET_TYPE_BLIND_BOX, asset.type);
+        assertEquals("2024-01-01T00:00:00Z", asset.timestamp);
+    }
+
+    @Test
+    void legacyJsonWithoutTimestampDecodesToEmptyTimestamp() {
+        AssetCodec.Asset asset = AssetCodec.decode(legacy("{\"assetId\":\"A1\",\"owner\":\"0xold\"}"));
+
+        assertEquals("A1", asset.assetId);
+        assertEquals(AssetCodec.ASSET_TYPE_NORMAL, asset.type);
+        assertEquals("", asset.timestamp);
+    }
+
+    @Test
+    void transferUpgradesLegacyJsonWithoutTimestamp() {
+        byte[] upgraded = AssetCodec.withOwner(legacy("{\"assetId\":\"A1\",\"owner\":\"0xold\",\"type\":\"BLIND_BOX\"}"), "0xnew");
+
+        AssetCodec.Asset asset = AssetCodec.decode(upgraded);
+        assertTrue(AssetCodec.isBinary(upgraded));
+        assertEquals("A1", asset.assetId);
+        assertEquals("0xnew", asset.owner);
+        assertEquals(AssetCodec.ASSET_TYPE_BLIND_BOX, asset.type);
+        assertEquals("", asset.timestamp);
+    }
+
+    @Test
+    void binaryWithOwnerKeepsOtherFields() {
+        byte[] state = AssetCodec.encode("A1", "0xold", AssetCodec.ASSET_TYPE_NORMAL, "t");
+
+        AssetCodec.Asset asset = AssetCodec.decode(AssetCodec.withOwner(state, "0xa-much-longer-owner-address"));
+
+        assertEquals("A1", asset.assetId);
+        assertEquals("0xa-much-longer-owner-address", asset.owner);
+        assertEquals("t", asset.timestamp);
+    }
+
+    private static byte[] legacy(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
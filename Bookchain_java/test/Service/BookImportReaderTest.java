@@ -0,0 +1,85 @@
+package com.bookchain.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 批量导入读取器：引号内换行、引号未闭合只使起始行无效、超长行
+ */
+class BookImportReaderTest {
+
+    @Test
+    void quotedFieldSpansLines() throws IOException {
+        List<BookImportReader.Row> rows = read("csv", "title,author\r\n\"第一行\n第二行\",甲\r\n乙书,乙\r\n");
+
+        assertEquals(2, rows.size());
+        assertEquals("第一行\n第二行", rows.get(0).title());
+        assertEquals(4, rows.get(1).line());
+        assertEquals("乙书", rows.get(1).title());
+    }
+
+    @Test
+    void unclosedQuoteAtEndOfStreamFailsOnlyItsLine() throws IOException {
+        List<BookImportReader.Row> rows = read("csv", "title,author\n\"坏书,甲\n乙书,乙\n丙书,丙\n");
+
+        assertEquals(3, rows.size());
+        assertEquals(2, rows.get(0).line());
+        assertEquals("引号未闭合", rows.get(0).error());
+        assertEquals("乙书", rows.get(1).title());
+        assertEquals(3, rows.get(1).line());
+        assertNull(rows.get(1).error());
+        assertEquals("丙书", rows.get(2).title());
+        assertEquals(4, rows.get(2).line());
+    }
+
+    @Test
+    void unclosedQuoteOverRecordLimitFailsOnlyItsLine() throws IOException {
+        StringBuilder csv = new StringBuilder("title,author\n\"坏书,甲\n");
+        int valid = BookImportReader.MAX_RECORD_CHARS / 10 + 100; // 后续有效行合计超过记录长度上限
+        for (int i = 0; i < valid; i++) {
+            csv.append("书").append(i).append(",乙\n");
+        }
+        List<BookImportReader.Row> rows = read("csv", csv.toString());
+
+        assertEquals(valid + 1, rows.size());
+        assertEquals("引号未闭合", rows.get(0).error());
+        for (int i = 1; i <= valid; i++) {
+            assertNull(rows.get(i).error());
+            assertEquals("书" + (i - 1), rows.get(i).title());
+            assertEquals(i + 2, rows.get(i).line());
+        }
+    }
+
+    @Test
+    void overlongJsonLineFailsOnlyThatLine() throws IOException {
+        String jsonl = "{\"title\":\"甲\"}\n" + "x".repeat(BookImportReader.MAX_RECORD_CHARS + 1) + "\n{\"title\":\"乙\"}";
+        List<BookImportReader.Row> rows = read("jsonl", jsonl);
+
+        assertEquals(3, rows.size());
+        assertEquals("甲", rows.get(0).title());
+        assertEquals(2, rows.get(1).line());
+        assertEquals("乙", rows.get(2).title());
+        assertNull(rows.get(2).error());
+    }
+
+    private static List<BookImportReader.Row> read(String format, String body) throws IOException {
+        List<BookImportReader.Row> rows = new ArrayList<>();
+        try (BookImportReader reader = BookImportReader.open(format,
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), new ObjectMapper())) {
+            BookImportReader.Row row;
+            while ((row = reader.next()) != null) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,104 @@
+package com.bookchain.service;
+
+import com.bookchain.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 热门盲盒排行：多个不同盲盒的增量记录、Top-K淘汰及启动追赶
+ */
+class HotBlindBoxRankingTest {
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    void recordsTwoDifferentBlindBoxes() {
+        HotBlindBoxRanking ranking = restored(newRanking(activitySince(List.of()), 10));
+        Date now = new Date();
+
+        ranking.onTransactionRecorded(new TransactionRecordedEvent(1L, 100L, true, "CREATE_BLIND_BOX", now));
+        ranking.onTransactionRecorded(new TransactionRecordedEvent(2L, 200L, true, "CREATE_BLIND_BOX", now));
+        ranking.onTransactionRecorded(new TransactionRecordedEvent(3L, 200L, true, "TRANSFER", now));
+
+        assertEquals(List.of(200L, 100L), ranking.topBlindBoxIds(10));
+    }
+
+    @Test
+    void evictsColderBlindBoxWhenTopIsFull() {
+        HotBlindBoxRanking ranking = restored(newRanking(activitySince(List.of()), 1));
+        Date now = new Date();
+
+        ranking.onTransactionRecorded(new TransactionRecordedEvent(1L, 100L, true, "CREATE_BLIND_BOX", now));
+        ranking.onTransactionRecorded(new TransactionRecordedEvent(2L, 200L, true, "TRANSFER", now));
+        ranking.onTransactionRecorded(new TransactionRecordedEvent(3L, 300L, true, "CREATE_BLIND_BOX", now));
+
+        assertEquals(List.of(200L), ranking.topBlindBoxIds(10));
+    }
+
+    @Test
+    void restoreCatchesUpSeveralBlindBoxes() {
+        Date now = new Date();
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{1L, 100L, true, "CREATE_BLIND_BOX", now});
+        rows.add(new Object[]{2L, 200L, true, "CREATE_BLIND_BOX", now});
+        rows.add(new Object[]{3L, 300L, false, "CREATE_BOOK", now});
+        rows.add(new Object[]{4L, 200L, true, "TRANSFER", now});
+        HotBlindBoxRanking ranking = newRanking(activitySince(rows), 10);
+
+        ranking.restore();
+
+        assertEquals(List.of(200L, 100L), ranking.topBlindBoxIds(10));
+    }
+
+    @Test
+    void liveEventBeforeRestoreWithoutSnapshotKeepsEarlierTransactions() {
+        Date now = new Date();
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{1L, 100L, true, "CREATE_BLIND_BOX", now});
+        rows.add(new Object[]{2L, 200L, true, "CREATE_BLIND_BOX", now});
+        rows.add(new Object[]{3L, 200L, true, "TRANSFER", now});
+        HotBlindBoxRanking ranking = newRanking(activitySince(rows), 10);
+
+        // 投影器在应用就绪前写入的交易：非盲盒交易同样不能提前推进检查点
+        ranking.onTransactionRecorded(new TransactionRecordedEvent(4L, 300L, false, "CREATE_BOOK", now));
+        ranking.onTransactionRecorded(new TransactionRecordedEvent(5L, 100L, true, "TRANSFER", now));
+        assertEquals(List.of(), ranking.topBlindBoxIds(10));
+
+        ranking.restore();
+
+        assertEquals(List.of(100L, 200L), ranking.topBlindBoxIds(10));
+    }
+
+    private HotBlindBoxRanking newRanking(TransactionRepository repository, int topK) {
+        return new HotBlindBoxRanking(repository, topK, 24, dataDir.resolve("hot.snapshot").toString());
+    }
+
+    private static HotBlindBoxRanking restored(HotBlindBoxRanking ranking) {
+        ranking.restore();
+        return ranking;
+    }
+
+    /**
+     * 只实现findActivitySince的交易仓库：首次查询返回全部行，之后返回空
+     */
+    private static TransactionRepository activitySince(List<Object[]> rows) {
+        return (TransactionRepository) Proxy.newProxyInstance(TransactionRepository.class.getClassLoader(),
+                new Class<?>[]{TransactionRepository.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("findActivitySince")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    long afterId = (Long) args[0];
+                    return afterId == 0 ? rows : Collections.emptyList();
+                });
+    }
+}
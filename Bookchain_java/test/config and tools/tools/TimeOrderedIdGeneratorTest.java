@@ -0,0 +1,36 @@
+package com.bookchain.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 节点ID的确定：显式配置、主机名序号、单实例默认及多实例未配置时启动失败
+ */
+class TimeOrderedIdGeneratorTest {
+
+    @Test
+    void configuredNodeIdWins() {
+        assertEquals(7, TimeOrderedIdGenerator.resolveNodeId(7, 3, "bookchain-2"));
+    }
+
+    @Test
+    void derivesNodeIdFromHostnameOrdinal() {
+        assertEquals(2, TimeOrderedIdGenerator.resolveNodeId(-1, 3, "bookchain-2"));
+    }
+
+    @Test
+    void singleInstanceWithoutOrdinalUsesNodeZero() {
+        assertEquals(0, TimeOrderedIdGenerator.resolveNodeId(-1, 1, "bookchain-7d9f8b-x2k4q"));
+        assertEquals(0, TimeOrderedIdGenerator.resolveNodeId(-1, 1, "dev-2024")); // 超出节点ID范围的序号不采用
+        assertEquals(0, TimeOrderedIdGenerator.resolveNodeId(-1, 1, null));
+    }
+
+    @Test
+    void multipleInstancesWithoutNodeIdFailAtStartup() {
+        assertThrows(IllegalStateException.class,
+                () -> TimeOrderedIdGenerator.resolveNodeId(-1, 3, "bookchain-7d9f8b-x2k4q"));
+        assertThrows(IllegalStateException.class, () -> TimeOrderedIdGenerator.resolveNodeId(-1, 2, null));
+    }
+}